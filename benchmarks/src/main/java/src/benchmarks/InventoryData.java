@@ -0,0 +1,73 @@
+package src.benchmarks;
+
+import src.InventoryItem;
+import src.datastructures.CustomArrayList;
+import java.util.Random;
+
+/**
+ * Generates reproducible inventories for the benchmarks
+ */
+public final class InventoryData {
+
+    /**
+     * The order in which item IDs are produced
+     */
+    public enum Order {
+        SEQUENTIAL, RANDOM
+    }
+
+    private static final String[] CATEGORIES = {
+            "Electronics", "Furniture", "Clothing", "Groceries", "Toys", "Books", "Garden", "Tools",
+            "Sports", "Automotive", "Office", "Health", "Beauty", "Kitchen", "Music", "Pets"
+    };
+
+    private static final String[] WORDS = {
+            "Red", "Blue", "Large", "Small", "Steel", "Wooden", "Classic", "Premium", "Compact", "Deluxe",
+            "Chair", "Lamp", "Shirt", "Drill", "Ball", "Cable", "Kettle", "Notebook", "Brush", "Speaker"
+    };
+
+    private InventoryData() {
+    }
+
+    /**
+     * Creates items with IDs 1 to size
+     * @param size The number of items
+     * @param order SEQUENTIAL for ascending IDs, RANDOM for a shuffled permutation
+     * @param seed Seed of the shuffle and the generated fields
+     * @return The items, in the requested ID order
+     */
+    static CustomArrayList<InventoryItem> items(int size, Order order, long seed) {
+        int[] ids = ids(size, order, seed);
+        Random random = new Random(seed);
+        CustomArrayList<InventoryItem> items = new CustomArrayList<>(size);
+        for (int id : ids) {
+            String name = WORDS[random.nextInt(WORDS.length)] + " " + WORDS[random.nextInt(WORDS.length)] + " " + id;
+            String category = CATEGORIES[random.nextInt(CATEGORIES.length)];
+            int quantity = random.nextInt(10_000);
+            double price = random.nextInt(100_000) / 100.0;
+            String supplier = "Supplier " + random.nextInt(500);
+            items.add(new InventoryItem(id, name, category, quantity, price, supplier));
+        }
+        return items;
+    }
+
+    /**
+     * Returns the IDs 1 to size in the requested order
+     */
+    static int[] ids(int size, Order order, long seed) {
+        int[] ids = new int[size];
+        for (int i = 0; i < size; i++) {
+            ids[i] = i + 1;
+        }
+        if (order == Order.RANDOM) {
+            Random random = new Random(seed ^ 0x5DEECE66DL);
+            for (int i = size - 1; i > 0; i--) {
+                int j = random.nextInt(i + 1);
+                int swap = ids[i];
+                ids[i] = ids[j];
+                ids[j] = swap;
+            }
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,54 @@
+package src.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import src.InventoryItem;
+import src.datastructures.CustomArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * CustomArrayList appends and indexed reads
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ListBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    private int size;
+
+    @Param({"SEQUENTIAL", "RANDOM"})
+    private InventoryData.Order order;
+
+    private CustomArrayList<InventoryItem> items;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        items = InventoryData.items(size, order, 42);
+    }
+
+    /**
+     * Appends every item to a list created without a capacity, so it grows as it fills
+     */
+    @Benchmark
+    public CustomArrayList<InventoryItem> add() {
+        CustomArrayList<InventoryItem> result = new CustomArrayList<>();
+        for (int i = 0; i < items.size(); i++) {
+            result.add(items.get(i));
+        }
+        return result;
+    }
+
+    /**
+     * Reads every element by index
+     */
+    @Benchmark
+    public void get(Blackhole blackhole) {
+        for (int i = 0; i < items.size(); i++) {
+            blackhole.consume(items.get(i));
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package src.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import src.InventoryItem;
+import src.SortKey;
+import src.datastructures.CustomArrayList;
+import src.datastructures.SortingAlgorithms;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Merge sort of the inventory by category, then name, then ID, the order
+ * used for display. Each invocation sorts a fresh copy of the input.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SortBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    private int size;
+
+    @Param({"SEQUENTIAL", "RANDOM"})
+    private InventoryData.Order order;
+
+    private CustomArrayList<InventoryItem> items;
+    private final Comparator<InventoryItem> comparator = SortKey.CATEGORY.getComparator();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        items = InventoryData.items(size, order, 42);
+    }
+
+    private CustomArrayList<InventoryItem> copy() {
+        CustomArrayList<InventoryItem> copy = new CustomArrayList<>(items.size());
+        for (int i = 0; i < items.size(); i++) {
+            copy.add(items.get(i));
+        }
+        return copy;
+    }
+
+    /**
+     * Baseline: the copy every sort benchmark starts with
+     */
+    @Benchmark
+    public CustomArrayList<InventoryItem> copyOnly() {
+        return copy();
+    }
+
+    @Benchmark
+    public CustomArrayList<InventoryItem> mergeSort() {
+        CustomArrayList<InventoryItem> list = copy();
+        SortingAlgorithms.mergeSort(list, comparator);
+        return list;
+    }
+
+    @Benchmark
+    public CustomArrayList<InventoryItem> parallelMergeSort() {
+        CustomArrayList<InventoryItem> list = copy();
+        SortingAlgorithms.parallelMergeSort(list, comparator);
+        return list;
+    }
+}
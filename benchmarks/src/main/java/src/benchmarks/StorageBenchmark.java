@@ -0,0 +1,92 @@
+package src.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import src.FileManager;
+import src.InventoryItem;
+import src.datastructures.BinarySearchTree;
+import src.datastructures.CustomArrayList;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * CSV snapshot load and save through FileManager. The store is moved to a
+ * temporary directory, so the benchmarks never touch inventory_data/.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StorageBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    private int size;
+
+    // SEQUENTIAL snapshots load through buildFromSorted, RANDOM ones through one insert per row
+    @Param({"SEQUENTIAL", "RANDOM"})
+    private InventoryData.Order order;
+
+    private Path directory;
+    private BinarySearchTree<InventoryItem> tree;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("inventory-bench");
+        FileManager.setDataDirectory(directory.toString());
+
+        CustomArrayList<InventoryItem> items = InventoryData.items(size, order, 42);
+        tree = new BinarySearchTree<>(Comparator.comparingInt(InventoryItem::getItemId));
+        for (int i = 0; i < items.size(); i++) {
+            tree.add(items.get(i));
+        }
+        if (order == InventoryData.Order.SEQUENTIAL) {
+            FileManager.saveAllItems(tree);
+        } else {
+            writeUnsortedSnapshot(items);
+        }
+    }
+
+    /**
+     * Writes the rows in generation order, as a hand-edited or imported file
+     * might be, since saveAllItems always writes them in ID order
+     */
+    private void writeUnsortedSnapshot(CustomArrayList<InventoryItem> items) throws IOException {
+        StringBuilder csv = new StringBuilder("itemId,name,category,quantity,price,supplier\n");
+        for (int i = 0; i < items.size(); i++) {
+            InventoryItem item = items.get(i);
+            csv.append(item.getItemId()).append(',').append(item.getName()).append(',')
+                    .append(item.getCategory()).append(',').append(item.getQuantity()).append(',')
+                    .append(item.getPrice()).append(',').append(item.getSupplier()).append('\n');
+        }
+        Files.writeString(directory.resolve("inventory_data.csv"), csv);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    /**
+     * Reads the snapshot and builds the store's tree
+     */
+    @Benchmark
+    public BinarySearchTree<InventoryItem> load() {
+        return FileManager.readAllItems();
+    }
+
+    /**
+     * Rewrites the snapshot from the tree. Every benchmark runs with its own
+     * setup, so this never changes the file the load benchmark reads.
+     */
+    @Benchmark
+    public boolean save() {
+        return FileManager.saveAllItems(tree);
+    }
+}
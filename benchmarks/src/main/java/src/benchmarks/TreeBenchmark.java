@@ -0,0 +1,89 @@
+package src.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import src.InventoryItem;
+import src.datastructures.BinarySearchTree;
+import src.datastructures.CustomArrayList;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * BinarySearchTree insertion, lookup and ordered traversal, keyed by item ID
+ * like the store
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TreeBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    private int size;
+
+    @Param({"SEQUENTIAL", "RANDOM"})
+    private InventoryData.Order order;
+
+    private CustomArrayList<InventoryItem> items;
+    private CustomArrayList<InventoryItem> sortedItems;
+    private BinarySearchTree<InventoryItem> tree;
+    private int[] lookupIds;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        items = InventoryData.items(size, order, 42);
+        sortedItems = InventoryData.items(size, InventoryData.Order.SEQUENTIAL, 42);
+        tree = newTree();
+        for (int i = 0; i < items.size(); i++) {
+            tree.add(items.get(i));
+        }
+        // Lookups always probe in random order; the tree shape comes from the insertion order
+        lookupIds = InventoryData.ids(size, InventoryData.Order.RANDOM, 7);
+    }
+
+    private static BinarySearchTree<InventoryItem> newTree() {
+        return new BinarySearchTree<>(Comparator.comparingInt(InventoryItem::getItemId));
+    }
+
+    /**
+     * Inserts every item one by one, in the order of the order parameter
+     */
+    @Benchmark
+    public BinarySearchTree<InventoryItem> insert() {
+        BinarySearchTree<InventoryItem> result = newTree();
+        for (int i = 0; i < items.size(); i++) {
+            result.add(items.get(i));
+        }
+        return result;
+    }
+
+    /**
+     * Builds the tree in linear time from items in ID order, as a snapshot load does
+     */
+    @Benchmark
+    public BinarySearchTree<InventoryItem> buildFromSorted() {
+        BinarySearchTree<InventoryItem> result = newTree();
+        result.buildFromSorted(sortedItems);
+        return result;
+    }
+
+    /**
+     * Looks up every ID once
+     */
+    @Benchmark
+    public void find(Blackhole blackhole) {
+        for (int id : lookupIds) {
+            blackhole.consume(tree.findBy(item -> Integer.compare(id, item.getItemId())));
+        }
+    }
+
+    /**
+     * Visits every item in ID order
+     */
+    @Benchmark
+    public void inOrderTraversal(Blackhole blackhole) {
+        tree.inOrderTraversal(blackhole::consume);
+    }
+}
@@ -0,0 +1,115 @@
+package src;
+
+import src.datastructures.BinarySearchTree;
+import src.datastructures.CustomArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.function.Function;
+
+/**
+ * Secondary index from an item attribute (such as category or supplier) to the items having it
+ * Keys are matched case-insensitively. Each key holds its items in a tree
+ * ordered by itemId, so adding and removing an item is O(log n) and a
+ * lookup only touches the matching items.
+ */
+public class AttributeIndex {
+
+    private final Function<InventoryItem, String> keyExtractor;
+    private final HashMap<String, BinarySearchTree<InventoryItem>> entries = new HashMap<>();
+
+    /**
+     * Constructor takes the attribute to index
+     * @param keyExtractor Returns the indexed attribute of an item
+     */
+    public AttributeIndex(Function<InventoryItem, String> keyExtractor) {
+        this.keyExtractor = keyExtractor;
+    }
+
+    /**
+     * Adds an item under its current attribute value
+     * @param item The item to index
+     */
+    public void add(InventoryItem item) {
+        String key = normalize(keyExtractor.apply(item));
+        BinarySearchTree<InventoryItem> matches = entries.get(key);
+        if (matches == null) {
+            matches = new BinarySearchTree<>(Comparator.comparingInt(InventoryItem::getItemId));
+            entries.put(key, matches);
+        }
+        matches.add(item);
+    }
+
+    /**
+     * Removes an item from the index
+     * Must be called with the item as it was indexed, before its attribute changes.
+     * @param item The item to remove
+     */
+    public void remove(InventoryItem item) {
+        String key = normalize(keyExtractor.apply(item));
+        BinarySearchTree<InventoryItem> matches = entries.get(key);
+        if (matches != null) {
+            matches.remove(item);
+            if (matches.isEmpty()) {
+                entries.remove(key);
+            }
+        }
+    }
+
+    /**
+     * Finds all items with the given attribute value
+     * @param key The attribute value, matched case-insensitively
+     * @return The matching items ordered by itemId, empty if there are none
+     */
+    public CustomArrayList<InventoryItem> find(String key) {
+        BinarySearchTree<InventoryItem> matches = entries.get(normalize(key));
+        if (matches == null) {
+            return new CustomArrayList<>();
+        }
+
+        CustomArrayList<InventoryItem> result = new CustomArrayList<>(matches.size());
+        matches.inOrderTraversal(result::add);
+        return result;
+    }
+
+    /**
+     * Finds one page of the items with the given attribute value
+     * Walks the key's tree in order and stops once the page is full, so
+     * only the skipped and returned items are visited.
+     * @param key The attribute value, matched case-insensitively
+     * @param offset Number of matching items to skip
+     * @param limit Maximum number of items to return
+     * @return The page of matching items ordered by itemId
+     */
+    public CustomArrayList<InventoryItem> find(String key, int offset, int limit) {
+        CustomArrayList<InventoryItem> page = new CustomArrayList<>();
+        BinarySearchTree<InventoryItem> matches = entries.get(normalize(key));
+        int skip = Math.max(offset, 0);
+        if (matches == null || limit <= 0 || skip >= matches.size()) {
+            return page;
+        }
+
+        final int[] position = {0};
+        matches.visitInOrder(item -> {
+            if (position[0]++ >= skip) {
+                page.add(item);
+            }
+            return page.size() < limit;
+        });
+        return page;
+    }
+
+    /**
+     * Counts the items with the given attribute value
+     * @param key The attribute value, matched case-insensitively
+     * @return The number of matching items
+     */
+    public int count(String key) {
+        BinarySearchTree<InventoryItem> matches = entries.get(normalize(key));
+        return matches == null ? 0 : matches.size();
+    }
+
+    private static String normalize(String key) {
+        return key == null ? "" : key.trim().toLowerCase(Locale.ROOT);
+    }
+}
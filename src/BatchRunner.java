@@ -0,0 +1,363 @@
+package src;
+
+import src.datastructures.CustomArrayList;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+
+/**
+ * Runs a script of inventory commands against one loaded store
+ * Each input line is a CSV record whose first field is the command:
+ *
+ *   create,name,category,quantity,price,supplier   -> OK,id
+ *   update,id,name,category,quantity,price,supplier -> OK,id
+ *   delete,id                                       -> OK,id
+ *   get,id                                          -> OK,id,name,category,quantity,price,supplier
+ *   adjust,id,delta                                 -> OK,id,quantity
+ *   reserve,id,count                                -> OK,id,quantity
+ *
+ * Every command produces exactly one result line, in input order; a
+ * failed command produces "ERR,n,message" where n is its command number,
+ * counting from 1 and skipping comments, so it is also the number of its
+ * result line. Lines starting with '#' are comments. Runs of consecutive
+ * creates, updates, deletes and adjustments are committed together with
+ * a single durable write.
+ */
+public class BatchRunner {
+
+    // Most mutations committed with one write
+    private static final int MAX_GROUP_SIZE = 1000;
+
+    // Commands handed from the parser to the executor at a time
+    private static final int CHUNK_SIZE = 512;
+
+    // Parsed chunks the parser may run ahead of the executor
+    private static final int PIPELINE_DEPTH = 16;
+
+    private final InventoryManager manager;
+    private Writer out;
+    private long commands;
+    private long failed;
+
+    // Mutations waiting to be committed together
+    private InventoryBatch group = new InventoryBatch();
+    private final CustomArrayList<Command> groupCommands = new CustomArrayList<>();
+
+    // A parsed script line
+    private static class Command {
+        final long number;
+        String name;
+        int itemId;
+        int amount;
+        InventoryItem item;
+        String error;
+
+        Command(long number) {
+            this.number = number;
+        }
+    }
+
+    /**
+     * Constructor
+     * @param manager The store to run commands against
+     */
+    public BatchRunner(InventoryManager manager) {
+        this.manager = manager;
+    }
+
+    /**
+     * Runs every command of a script
+     * @param input The script
+     * @param output Receives one result line per command
+     * @param pipelined true to parse on a separate thread while commands execute
+     * @return The number of commands that failed
+     * @throws IOException If reading the script or writing results fails
+     */
+    public long run(Reader input, Writer output, boolean pipelined) throws IOException {
+        out = output;
+        commands = 0;
+        failed = 0;
+        CSVReader reader = new CSVReader(input);
+
+        if (!pipelined) {
+            CustomArrayList<Command> chunk;
+            long[] count = {0};
+            while (!(chunk = parseChunk(reader, count)).isEmpty()) {
+                execute(chunk);
+            }
+        } else {
+            runPipelined(reader);
+        }
+
+        commitGroup();
+        out.flush();
+        return failed;
+    }
+
+    /**
+     * Parses on a daemon thread and executes on the calling one, so the
+     * store is only ever used by one thread of the runner
+     */
+    private void runPipelined(CSVReader reader) throws IOException {
+        ArrayBlockingQueue<CustomArrayList<Command>> queue = new ArrayBlockingQueue<>(PIPELINE_DEPTH);
+        IOException[] parseFailure = {null};
+
+        Thread parser = new Thread(() -> {
+            long[] count = {0};
+            try {
+                CustomArrayList<Command> chunk;
+                do {
+                    try {
+                        chunk = parseChunk(reader, count);
+                    } catch (IOException e) {
+                        parseFailure[0] = e;
+                        chunk = new CustomArrayList<>();
+                    }
+                    queue.put(chunk); // An empty chunk marks the end
+                } while (!chunk.isEmpty());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }, "batch-parser");
+        parser.setDaemon(true);
+        parser.start();
+
+        try {
+            CustomArrayList<Command> chunk;
+            while (!(chunk = queue.take()).isEmpty()) {
+                execute(chunk);
+            }
+            parser.join();
+        } catch (InterruptedException e) {
+            parser.interrupt();
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while running the batch", e);
+        }
+        if (parseFailure[0] != null) {
+            throw parseFailure[0];
+        }
+    }
+
+    private static CustomArrayList<Command> parseChunk(CSVReader reader, long[] count) throws IOException {
+        CustomArrayList<Command> chunk = new CustomArrayList<>(CHUNK_SIZE);
+        while (chunk.size() < CHUNK_SIZE && reader.nextRecord()) {
+            if (reader.getString(0).startsWith("#")) {
+                continue;
+            }
+            chunk.add(parse(reader, ++count[0]));
+        }
+        return chunk;
+    }
+
+    private static Command parse(CSVReader reader, long number) {
+        Command command = new Command(number);
+        command.name = reader.getString(0).toLowerCase(Locale.ROOT);
+        int arguments = reader.getFieldCount() - 1;
+        try {
+            switch (command.name) {
+                case "create":
+                    expectArguments(arguments, 5);
+                    command.item = parseItem(reader, 0, 1);
+                    break;
+                case "update":
+                    expectArguments(arguments, 6);
+                    command.itemId = reader.getInt(1);
+                    command.item = parseItem(reader, command.itemId, 2);
+                    break;
+                case "get":
+                case "delete":
+                    expectArguments(arguments, 1);
+                    command.itemId = reader.getInt(1);
+                    break;
+                case "adjust":
+                case "reserve":
+                    expectArguments(arguments, 2);
+                    command.itemId = reader.getInt(1);
+                    command.amount = reader.getInt(2);
+                    if (command.name.equals("reserve") && command.amount < 1) {
+                        command.error = "count must be at least 1";
+                    }
+                    break;
+                default:
+                    command.error = "Unknown command: " + command.name;
+            }
+        } catch (NumberFormatException e) {
+            command.error = "Invalid number: " + e.getMessage();
+        } catch (IllegalArgumentException e) {
+            command.error = e.getMessage();
+        }
+        return command;
+    }
+
+    private static void expectArguments(int actual, int expected) {
+        if (actual != expected) {
+            throw new IllegalArgumentException("Expected " + expected + " arguments but got " + actual);
+        }
+    }
+
+    private static InventoryItem parseItem(CSVReader reader, int itemId, int offset) {
+        String name = reader.getString(offset);
+        String category = reader.getString(offset + 1);
+        int quantity = reader.getInt(offset + 2);
+        double price = reader.getDouble(offset + 3);
+        String supplier = reader.getString(offset + 4);
+        if (name.isEmpty() || category.isEmpty() || supplier.isEmpty()) {
+            throw new IllegalArgumentException("name, category and supplier cannot be empty");
+        }
+        if (quantity < 0 || price < 0) {
+            throw new IllegalArgumentException("quantity and price cannot be negative");
+        }
+        return new InventoryItem(itemId, name, category, quantity, price, supplier);
+    }
+
+    private void execute(CustomArrayList<Command> chunk) throws IOException {
+        commands += chunk.size();
+        for (int i = 0; i < chunk.size(); i++) {
+            Command command = chunk.get(i);
+            if (command.error != null) {
+                commitGroup();
+                fail(command, command.error);
+                continue;
+            }
+
+            switch (command.name) {
+                case "create":
+                    group.create(command.item);
+                    groupCommands.add(command);
+                    break;
+                case "update":
+                    group.update(command.itemId, command.item);
+                    groupCommands.add(command);
+                    break;
+                case "delete":
+                    group.delete(command.itemId);
+                    groupCommands.add(command);
+                    break;
+                case "adjust":
+                    group.adjust(command.itemId, command.amount);
+                    groupCommands.add(command);
+                    break;
+                case "reserve":
+                    group.adjust(command.itemId, -command.amount);
+                    groupCommands.add(command);
+                    break;
+                default:
+                    // Reads must see every earlier mutation
+                    commitGroup();
+                    executeSingle(command);
+            }
+            if (groupCommands.size() >= MAX_GROUP_SIZE) {
+                commitGroup();
+            }
+        }
+    }
+
+    /**
+     * Commits the pending mutations as one batch. If the batch is rejected,
+     * for example by a reservation that exceeds the stock, they are run one
+     * by one so each failure is reported on its own line.
+     */
+    private void commitGroup() throws IOException {
+        if (groupCommands.isEmpty()) {
+            return;
+        }
+
+        if (manager.applyBatch(group)) {
+            CustomArrayList<InventoryBatch.Operation> operations = group.getOperations();
+            for (int i = 0; i < groupCommands.size(); i++) {
+                Command command = groupCommands.get(i);
+                if (command.name.equals("create")) {
+                    succeed(command.item.getItemId());
+                } else if (command.name.equals("adjust") || command.name.equals("reserve")) {
+                    out.write("OK," + command.itemId + "," + operations.get(i).getResultQuantity() + "\n");
+                } else {
+                    succeed(command.itemId);
+                }
+            }
+        } else {
+            for (int i = 0; i < groupCommands.size(); i++) {
+                executeSingle(groupCommands.get(i));
+            }
+        }
+        group = new InventoryBatch();
+        groupCommands.clear();
+    }
+
+    private void executeSingle(Command command) throws IOException {
+        switch (command.name) {
+            case "create":
+                try {
+                    if (command.item.getItemId() <= 0) {
+                        command.item.setItemId(manager.allocateItemId());
+                    }
+                    if (manager.createItem(command.item)) {
+                        succeed(command.item.getItemId());
+                    } else {
+                        fail(command, "Item could not be saved");
+                    }
+                } catch (IllegalStateException e) {
+                    fail(command, e.getMessage());
+                }
+                break;
+            case "update":
+                if (manager.updateItem(command.itemId, command.item)) {
+                    succeed(command.itemId);
+                } else {
+                    fail(command, missingOrUnsaved(command.itemId));
+                }
+                break;
+            case "delete":
+                if (manager.deleteItem(command.itemId)) {
+                    succeed(command.itemId);
+                } else {
+                    fail(command, missingOrUnsaved(command.itemId));
+                }
+                break;
+            case "get":
+                InventoryItem item = manager.readItem(command.itemId);
+                if (item != null) {
+                    out.write("OK,");
+                    out.write(FileManager.formatCSVRow(item));
+                    out.write('\n');
+                } else {
+                    fail(command, "Item not found");
+                }
+                break;
+            default:
+                int delta = command.name.equals("reserve") ? -command.amount : command.amount;
+                int quantity = manager.adjustQuantity(command.itemId, delta);
+                if (quantity >= 0) {
+                    out.write("OK," + command.itemId + "," + quantity + "\n");
+                } else if (manager.readItem(command.itemId) == null) {
+                    fail(command, "Item not found");
+                } else {
+                    fail(command, "Insufficient stock or change rejected");
+                }
+        }
+    }
+
+    /**
+     * Returns the number of commands run by the last call to run
+     * @return The command count
+     */
+    public long getCommandCount() {
+        return commands;
+    }
+
+    private String missingOrUnsaved(int itemId) {
+        return manager.readItem(itemId) == null ? "Item not found" : "Item could not be saved";
+    }
+
+    private void succeed(int itemId) throws IOException {
+        out.write("OK,");
+        out.write(Integer.toString(itemId));
+        out.write('\n');
+    }
+
+    private void fail(Command command, String message) throws IOException {
+        failed++;
+        out.write("ERR," + command.number + "," + message.replace('\n', ' ').replace(',', ';') + "\n");
+    }
+}
@@ -1,6 +1,17 @@
 package src;
 
+import java.io.BufferedWriter;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.util.Scanner;
+import src.datastructures.CustomArrayList;
 
 /**
  * Command Line Interface for the Inventory Management System
@@ -8,6 +19,9 @@ import java.util.Scanner;
  */
 public class CLI {
 
+    // Number of results shown per page of a name search
+    private static final int PAGE_SIZE = 20;
+
     private InventoryManager manager;
     private Scanner scanner;
 
@@ -17,6 +31,12 @@ public class CLI {
     public CLI() {
         manager = new InventoryManager();
         scanner = new Scanner(System.in);
+        manager.addLowStockListener((item, threshold, below) -> {
+            if (below) {
+                System.out.println("Low stock: " + item.getName() + " (ID " + item.getItemId() + ") has "
+                        + item.getQuantity() + " left, below its reorder threshold of " + threshold);
+            }
+        });
     }
 
     /**
@@ -27,6 +47,37 @@ public class CLI {
         app.showMenu();
     }
 
+    /**
+     * Runs a command script non-interactively, see BatchRunner for the commands
+     * Results go to standard output, one line per command; everything else,
+     * including load messages and the summary, goes to standard error.
+     * @param scriptPath The script to run, or null to read standard input
+     * @param pipelined true to parse the script on a separate thread
+     * @return 0 if every command succeeded, 1 if some failed, 2 if the script could not be run
+     */
+    public static int runBatch(String scriptPath, boolean pipelined) {
+        PrintStream results = System.out;
+        System.setOut(System.err);
+        try (InputStream in = scriptPath == null ? System.in : new FileInputStream(scriptPath);
+             Reader reader = new InputStreamReader(in, StandardCharsets.UTF_8)) {
+            InventoryManager manager = new InventoryManager();
+            Writer writer = new BufferedWriter(new OutputStreamWriter(results, StandardCharsets.UTF_8), 64 * 1024);
+
+            long startTime = System.nanoTime();
+            BatchRunner runner = new BatchRunner(manager);
+            long failed = runner.run(reader, writer, pipelined);
+            double seconds = (System.nanoTime() - startTime) / 1e9;
+            System.err.printf("Ran %d commands (%d failed) in %.2f s (%.0f commands/s)%n",
+                    runner.getCommandCount(), failed, seconds, runner.getCommandCount() / Math.max(seconds, 1e-9));
+            return failed == 0 ? 0 : 1;
+        } catch (IOException e) {
+            System.err.println("Error running batch: " + e.getMessage());
+            return 2;
+        } finally {
+            System.setOut(results);
+        }
+    }
+
     /**
      * Shows the main menu and handles user choices
      */
@@ -34,7 +85,7 @@ public class CLI {
         int choice;
         do {
             displayMenu();
-            choice = getValidIntInput("Enter your choice: ", 0, 5);
+            choice = getValidIntInput("Enter your choice: ", 0, 14);
 
             switch (choice) {
                 case 1:
@@ -52,6 +103,33 @@ public class CLI {
                 case 5:
                     manager.viewAllItems();
                     break;
+                case 6:
+                    searchByAttribute();
+                    break;
+                case 7:
+                    searchByName();
+                    break;
+                case 8:
+                    browseItems();
+                    break;
+                case 9:
+                    exportItems();
+                    break;
+                case 10:
+                    importItems();
+                    break;
+                case 11:
+                    showStatistics();
+                    break;
+                case 12:
+                    showStockTotals();
+                    break;
+                case 13:
+                    showLowStock();
+                    break;
+                case 14:
+                    findByRange();
+                    break;
                 case 0:
                     System.out.println("Exiting the program...");
                     break;
@@ -71,6 +149,15 @@ public class CLI {
         System.out.println("3. Delete Item");
         System.out.println("4. Read Item");
         System.out.println("5. View All Items");
+        System.out.println("6. Search by Category or Supplier");
+        System.out.println("7. Search by Name");
+        System.out.println("8. Browse Items by Page");
+        System.out.println("9. Export Inventory Table to File");
+        System.out.println("10. Bulk Import Items from CSV");
+        System.out.println("11. Statistics");
+        System.out.println("12. Stock Totals by Category or Supplier");
+        System.out.println("13. Low Stock Report");
+        System.out.println("14. Find Items by ID or Price Range");
         System.out.println("0. Exit");
     }
 
@@ -154,7 +241,13 @@ public class CLI {
      */
     public void createItem() {
         // Get the next available ID automatically
-        int id = FileManager.getNextAvailableId();
+        int id;
+        try {
+            id = manager.allocateItemId();
+        } catch (IllegalStateException e) {
+            System.out.println("Failed to allocate an item ID: " + e.getMessage());
+            return;
+        }
 
         String name = getValidStringInput("Enter Item Name: ");
         String category = getValidStringInput("Enter Category: ");
@@ -170,9 +263,15 @@ public class CLI {
         String supplier = getValidStringInput("Enter Supplier: ");
 
         InventoryItem item = new InventoryItem(id, name, category, quantity, price, supplier);
-        manager.createItem(item);
-
-        System.out.println("Item created with ID: " + id + " and saved successfully!");
+        try {
+            if (manager.createItem(item)) {
+                System.out.println("Item created with ID: " + id + " and saved successfully!");
+            } else {
+                System.out.println("Failed to save item.");
+            }
+        } catch (IllegalStateException e) {
+            System.out.println("Failed to save item: " + e.getMessage());
+        }
     }
 
     /**
@@ -293,4 +392,211 @@ public class CLI {
             System.out.println("Item not found.");
         }
     }
+
+    /**
+     * Lists the items of a category or a supplier
+     */
+    public void searchByAttribute() {
+        System.out.println("1. Category");
+        System.out.println("2. Supplier");
+        int field = getValidIntInput("Search by: ", 1, 2);
+        String value = getValidStringInput(field == 1 ? "Enter Category: " : "Enter Supplier: ");
+
+        CustomArrayList<InventoryItem> results = field == 1
+                ? manager.findByCategory(value)
+                : manager.findBySupplier(value);
+
+        if (results.isEmpty()) {
+            System.out.println("No matching items found.");
+        } else {
+            manager.displayItems(results);
+        }
+    }
+
+    /**
+     * Shows units and stock value per category or per supplier
+     */
+    public void showStockTotals() {
+        System.out.println("1. Category");
+        System.out.println("2. Supplier");
+        int field = getValidIntInput("Totals by: ", 1, 2);
+        CustomArrayList<InventoryAggregates.Summary> totals = field == 1
+                ? manager.getCategoryTotals()
+                : manager.getSupplierTotals();
+
+        if (totals.isEmpty()) {
+            System.out.println("No items in inventory.");
+            return;
+        }
+
+        String format = "%-25s %8s %12s %16s %12s %12s%n";
+        System.out.printf(format, field == 1 ? "Category" : "Supplier", "Items", "Units", "Stock Value", "Min Price", "Max Price");
+        for (int i = 0; i < totals.size(); i++) {
+            InventoryAggregates.Summary summary = totals.get(i);
+            System.out.printf(format, summary.getKey(), summary.getItemCount(), summary.getUnits(),
+                    String.format("$%.2f", summary.getStockValue()),
+                    String.format("$%.2f", summary.getMinPrice()), String.format("$%.2f", summary.getMaxPrice()));
+        }
+    }
+
+    /**
+     * Lists the items below their reorder threshold and lets the user
+     * change an item's threshold
+     */
+    public void showLowStock() {
+        CustomArrayList<InventoryItem> lowItems = manager.itemsBelowThreshold(PAGE_SIZE);
+        if (lowItems.isEmpty()) {
+            System.out.println("No items are below their reorder threshold.");
+        } else {
+            System.out.println("Items below their reorder threshold, lowest first:");
+            manager.displayItems(lowItems);
+        }
+
+        int id = getValidIntInput("Enter an item ID to change its reorder threshold, or 0 to return: ", 0, Integer.MAX_VALUE);
+        if (id == 0) {
+            return;
+        }
+        if (manager.readItem(id) == null) {
+            System.out.println("Item not found.");
+            return;
+        }
+        System.out.println("Current reorder threshold: " + manager.getReorderThreshold(id));
+        int threshold = getValidIntInput("Enter new reorder threshold: ", 0, Integer.MAX_VALUE);
+        if (manager.setReorderThreshold(id, threshold)) {
+            System.out.println("Reorder threshold updated.");
+        } else {
+            System.out.println("Item not found.");
+        }
+    }
+
+    /**
+     * Lists the items with IDs or prices between two bounds, one page at most
+     */
+    public void findByRange() {
+        System.out.println("1. ID");
+        System.out.println("2. Price");
+        int field = getValidIntInput("Range of: ", 1, 2);
+
+        CustomArrayList<InventoryItem> results;
+        if (field == 1) {
+            int lowId = getValidIntInput("Enter lowest ID: ", 1, Integer.MAX_VALUE);
+            int highId = getValidIntInput("Enter highest ID: ", lowId, Integer.MAX_VALUE);
+            results = manager.findByIdRange(lowId, highId, PAGE_SIZE);
+        } else {
+            double lowPrice = getValidDoubleInput("Enter lowest price: ");
+            double highPrice = getValidDoubleInput("Enter highest price: ");
+            results = manager.findByPriceRange(lowPrice, highPrice, PAGE_SIZE);
+        }
+
+        if (results.isEmpty()) {
+            System.out.println("No matching items found.");
+        } else {
+            manager.displayItems(results);
+            if (results.size() == PAGE_SIZE) {
+                System.out.println("Showing the first " + PAGE_SIZE + " matches; narrow the range to see others.");
+            }
+        }
+    }
+
+    /**
+     * Searches items by full or partial name, one page at a time
+     */
+    public void searchByName() {
+        String query = getValidStringInput("Enter Name or part of it: ");
+
+        int offset = 0;
+        while (true) {
+            CustomArrayList<InventoryItem> results = manager.searchByName(query, offset, PAGE_SIZE);
+            if (results.isEmpty()) {
+                System.out.println(offset == 0 ? "No matching items found." : "No more results.");
+                return;
+            }
+            manager.displayItems(results);
+
+            if (results.size() < PAGE_SIZE) {
+                return;
+            }
+            System.out.print("Enter 'n' for the next page or press Enter to return: ");
+            if (!scanner.nextLine().trim().equalsIgnoreCase("n")) {
+                return;
+            }
+            offset += PAGE_SIZE;
+        }
+    }
+
+    /**
+     * Pages through the inventory in a chosen order, e.g. by quantity to
+     * see the lowest stock first
+     */
+    public void browseItems() {
+        SortKey[] sortKeys = SortKey.values();
+        for (int i = 0; i < sortKeys.length; i++) {
+            System.out.println((i + 1) + ". By " + sortKeys[i].name().toLowerCase());
+        }
+        SortKey sortKey = sortKeys[getValidIntInput("Sort: ", 1, sortKeys.length) - 1];
+        int pageSize = getValidIntInput("Items per page: ", 1, 1000);
+
+        InventoryItem cursor = null;
+        while (true) {
+            CustomArrayList<InventoryItem> page = manager.listItemsAfter(sortKey, cursor, pageSize);
+            if (page.isEmpty()) {
+                System.out.println(cursor == null ? "No items in inventory." : "No more items.");
+                return;
+            }
+            manager.displayItems(page);
+
+            if (page.size() < pageSize) {
+                return;
+            }
+            System.out.print("Enter 'n' for the next page or press Enter to return: ");
+            if (!scanner.nextLine().trim().equalsIgnoreCase("n")) {
+                return;
+            }
+            cursor = page.get(page.size() - 1);
+        }
+    }
+
+    /**
+     * Writes the inventory table to a file instead of the console
+     */
+    public void exportItems() {
+        String filePath = getValidStringInput("Enter output file path: ");
+        if (manager.exportItems(filePath)) {
+            System.out.println("Inventory table written to " + filePath);
+        } else {
+            System.out.println("Failed to export inventory table.");
+        }
+    }
+
+    /**
+     * Imports items from a supplier catalog or another CSV file
+     */
+    public void importItems() {
+        String filePath = getValidStringInput("Enter CSV file path: ");
+        int imported = manager.importItems(filePath);
+        if (imported < 0) {
+            System.out.println("Failed to import items.");
+        }
+    }
+
+    /**
+     * Shows operation latencies and counters, and lets the user turn
+     * measuring on or off or clear the recorded values
+     */
+    public void showStatistics() {
+        System.out.println("\n--- Statistics ---");
+        System.out.print(manager.getStatistics());
+
+        System.out.println("\n1. " + (Metrics.isEnabled() ? "Disable" : "Enable") + " Statistics");
+        System.out.println("2. Reset Statistics");
+        System.out.println("0. Back");
+        int choice = getValidIntInput("Enter your choice: ", 0, 2);
+        if (choice == 1) {
+            Metrics.setEnabled(!Metrics.isEnabled());
+            System.out.println("Statistics " + (Metrics.isEnabled() ? "enabled." : "disabled."));
+        } else if (choice == 2) {
+            Metrics.reset();
+            System.out.println("Statistics cleared.");
+        }
+    }
 }
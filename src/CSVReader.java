@@ -0,0 +1,281 @@
+package src;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
+/**
+ * Single-pass CSV tokenizer used to load the inventory file and the write-ahead log
+ * Reads characters in large blocks and unquotes fields into one reusable
+ * record buffer, so no regex or per-line String[] is involved.
+ * Quoted fields may contain commas, doubled quotes and newlines.
+ */
+public class CSVReader implements Closeable {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final Reader reader;
+    private final char[] buffer = new char[BUFFER_SIZE];
+    private int bufferLength;
+    private int bufferPosition;
+
+    // Unquoted characters of the current record, fields are slices of it
+    private char[] record = new char[256];
+    private int recordLength;
+    private int[] fieldStarts = new int[8];
+    private int[] fieldEnds = new int[8];
+    private boolean[] fieldQuoted = new boolean[8];
+    private int fieldCount;
+    private boolean terminated;
+
+    /**
+     * Constructor wraps an existing reader
+     * @param reader The reader to tokenize
+     */
+    public CSVReader(Reader reader) {
+        this.reader = reader;
+    }
+
+    /**
+     * Opens a UTF-8 file for tokenizing
+     * @param filePath The path of the file
+     * @return A reader positioned before the first record
+     * @throws IOException If the file cannot be opened
+     */
+    public static CSVReader open(String filePath) throws IOException {
+        return new CSVReader(Files.newBufferedReader(Paths.get(filePath), StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Advances to the next record, skipping blank lines
+     * @return true if a record was read, false at end of input
+     * @throws IOException If reading fails
+     */
+    public boolean nextRecord() throws IOException {
+        do {
+            if (!readRecord()) {
+                return false;
+            }
+        } while (fieldCount == 1 && recordLength == 0 && !fieldQuoted[0]);
+        return true;
+    }
+
+    private boolean readRecord() throws IOException {
+        recordLength = 0;
+        fieldCount = 0;
+        terminated = false;
+
+        boolean inQuotes = false;
+        boolean quoted = false;
+        boolean afterQuote = false;
+        boolean sawInput = false;
+        int fieldStart = 0;
+
+        while (true) {
+            if (bufferPosition == bufferLength) {
+                bufferLength = reader.read(buffer, 0, BUFFER_SIZE);
+                bufferPosition = 0;
+                if (bufferLength <= 0) {
+                    bufferLength = 0;
+                    if (!sawInput) {
+                        return false;
+                    }
+                    // Last record has no line terminator
+                    endField(fieldStart, quoted);
+                    return true;
+                }
+            }
+
+            char c = buffer[bufferPosition++];
+            sawInput = true;
+
+            if (inQuotes) {
+                if (c == '"') {
+                    inQuotes = false;
+                    afterQuote = true;
+                } else {
+                    append(c);
+                }
+                continue;
+            }
+
+            if (c == '"') {
+                if (afterQuote) {
+                    // Doubled quote inside a quoted field
+                    append('"');
+                    inQuotes = true;
+                    afterQuote = false;
+                } else if (recordLength == fieldStart) {
+                    inQuotes = true;
+                    quoted = true;
+                } else {
+                    append(c);
+                }
+            } else if (c == ',') {
+                endField(fieldStart, quoted);
+                fieldStart = recordLength;
+                quoted = false;
+                afterQuote = false;
+            } else if (c == '\n') {
+                endField(fieldStart, quoted);
+                terminated = true;
+                return true;
+            } else if (c != '\r') {
+                afterQuote = false;
+                append(c);
+            }
+        }
+    }
+
+    private void append(char c) {
+        if (recordLength == record.length) {
+            char[] grown = new char[record.length * 2];
+            System.arraycopy(record, 0, grown, 0, recordLength);
+            record = grown;
+        }
+        record[recordLength++] = c;
+    }
+
+    private void endField(int start, boolean quoted) {
+        if (fieldCount == fieldStarts.length) {
+            int capacity = fieldStarts.length * 2;
+            int[] starts = new int[capacity];
+            int[] ends = new int[capacity];
+            boolean[] quotes = new boolean[capacity];
+            System.arraycopy(fieldStarts, 0, starts, 0, fieldCount);
+            System.arraycopy(fieldEnds, 0, ends, 0, fieldCount);
+            System.arraycopy(fieldQuoted, 0, quotes, 0, fieldCount);
+            fieldStarts = starts;
+            fieldEnds = ends;
+            fieldQuoted = quotes;
+        }
+        fieldStarts[fieldCount] = start;
+        fieldEnds[fieldCount] = recordLength;
+        fieldQuoted[fieldCount] = quoted;
+        fieldCount++;
+    }
+
+    /**
+     * Returns the number of fields in the current record
+     * @return The field count
+     */
+    public int getFieldCount() {
+        return fieldCount;
+    }
+
+    /**
+     * Checks whether the current record ended with a newline
+     * A record cut off by the end of the input may be incomplete.
+     * @return true if the record was terminated
+     */
+    public boolean isRecordTerminated() {
+        return terminated;
+    }
+
+    /**
+     * Returns a field as a string, trimming unquoted fields
+     * @param index The field index
+     * @return The field value
+     */
+    public String getString(int index) {
+        checkIndex(index);
+        int start = fieldStarts[index];
+        int end = fieldEnds[index];
+        if (!fieldQuoted[index]) {
+            while (start < end && record[start] <= ' ') {
+                start++;
+            }
+            while (end > start && record[end - 1] <= ' ') {
+                end--;
+            }
+        }
+        return new String(record, start, end - start);
+    }
+
+    /**
+     * Parses a field as an int directly from the record buffer
+     * @param index The field index
+     * @return The parsed value
+     * @throws NumberFormatException If the field is not a valid int
+     */
+    public int getInt(int index) {
+        checkIndex(index);
+        int position = fieldStarts[index];
+        int end = fieldEnds[index];
+        while (position < end && record[position] <= ' ') {
+            position++;
+        }
+        while (end > position && record[end - 1] <= ' ') {
+            end--;
+        }
+
+        boolean negative = false;
+        if (position < end && (record[position] == '-' || record[position] == '+')) {
+            negative = record[position] == '-';
+            position++;
+        }
+        if (position == end) {
+            throw new NumberFormatException("For input string: \"" + getString(index) + "\"");
+        }
+
+        // Accumulate negatively so Integer.MIN_VALUE parses without overflow
+        long limit = negative ? Integer.MIN_VALUE : -Integer.MAX_VALUE;
+        long result = 0;
+        while (position < end) {
+            int digit = record[position++] - '0';
+            if (digit < 0 || digit > 9) {
+                throw new NumberFormatException("For input string: \"" + getString(index) + "\"");
+            }
+            result = result * 10 - digit;
+            if (result < limit) {
+                throw new NumberFormatException("Value out of range: \"" + getString(index) + "\"");
+            }
+        }
+        return (int) (negative ? result : -result);
+    }
+
+    /**
+     * Parses a field as a double
+     * @param index The field index
+     * @return The parsed value
+     * @throws NumberFormatException If the field is not a valid number
+     */
+    public double getDouble(int index) {
+        return Double.parseDouble(getString(index));
+    }
+
+    /**
+     * Compares a field with a string without allocating
+     * @param index The field index
+     * @param value The value to compare with
+     * @return true if the raw field equals the value
+     */
+    public boolean fieldEquals(int index, String value) {
+        checkIndex(index);
+        int start = fieldStarts[index];
+        int length = fieldEnds[index] - start;
+        if (length != value.length()) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (record[start + i] != value.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= fieldCount) {
+            throw new IndexOutOfBoundsException("Field: " + index + ", Fields: " + fieldCount);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+}
@@ -1,25 +1,86 @@
 package src;
 import java.io.*;
-import java.util.Scanner;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
 import src.datastructures.BinarySearchTree;
-import java.util.Comparator;
 import src.datastructures.CustomArrayList;
+import java.util.Comparator;
+import java.util.function.Consumer;
 
 /**
  * Handles file operations for the inventory system
  * Uses CSV format for storing inventory data
+ * Mutations can be appended to write-ahead log segments that are folded
+ * into the CSV snapshot at each checkpoint. Deletes are logged as
+ * tombstone records, so item IDs never change.
+ *
+ * Log appends share fsyncs through group commit unless started with
+ * -Dinventory.groupcommit=false; -Dinventory.groupcommit.maxBatch and
+ * -Dinventory.groupcommit.maxWaitMicros tune it (1024 and 0 by default).
  */
 public class FileManager {
 
     // Change the file path to use a single file
-    private static final String CSV_DIRECTORY = "inventory_data/";
+    private static final String DEFAULT_DIRECTORY = "inventory_data/";
     private static final String CSV_FILE = "inventory_data.csv";
+    private static final String CSV_HEADER = "itemId,name,category,quantity,price,supplier";
+
+    // Write-ahead log segments are named inventory_data-<sequence>.wal
+    private static final String WAL_PREFIX = "inventory_data-";
+    private static final String WAL_SUFFIX = ".wal";
+
+    // Holds the item ID high-water mark of the IdAllocator
+    private static final String ID_FILE = "inventory_data.id";
+
+    // Snapshot line recording the last log segment already folded into it
+    private static final String CHECKPOINT_MARKER = "#checkpoint";
+
+    // Log record types
+    private static final String UPSERT_RECORD = "U";
+    private static final String DELETE_RECORD = "D";
+    private static final String BATCH_RECORD = "B";
+    private static final String ADJUST_RECORD = "A";
+
+    // Directory holding the snapshot, log segments and ID file
+    private static volatile String dataDirectory = DEFAULT_DIRECTORY;
+
+    private static volatile boolean writeAheadLogEnabled = true;
+    private static FileOutputStream walStream;
+    private static long walSegment = 1;
+    private static int walRecordCount;
+    private static int walTombstoneCount;
+
+    // Collects log records from concurrent writers into shared fsyncs
+    private static final GroupCommitLog groupCommitLog = new GroupCommitLog(FileManager::writeLogRecords);
+    private static volatile boolean groupCommitEnabled = true;
+
+    static {
+        setGroupCommitEnabled(Boolean.parseBoolean(System.getProperty("inventory.groupcommit", "true")));
+        try {
+            configureGroupCommit(Integer.getInteger("inventory.groupcommit.maxBatch", 1024),
+                    Long.getLong("inventory.groupcommit.maxWaitMicros", 0));
+        } catch (IllegalArgumentException e) {
+            System.out.println("Ignoring group commit settings: " + e.getMessage());
+        }
+    }
+
+    // Serializes snapshot writers, which share the temporary file
+    private static final Object SNAPSHOT_LOCK = new Object();
+
+    // Last log segment covered by a written snapshot, guarded by SNAPSHOT_LOCK
+    private static long lastSnapshotSegment;
+
+    // Statistics of the most recent readAllItems call
+    private static long lastLoadRows;
+    private static long lastLoadNanos;
 
     /**
      * Ensures the directory for storing CSV files exists
      */
     private static void ensureDirectoryExists() {
-        File directory = new File(CSV_DIRECTORY);
+        File directory = new File(dataDirectory);
         if (!directory.exists()) {
             directory.mkdirs();
         }
@@ -27,164 +88,656 @@ public class FileManager {
 
     // Replace getFilePath method to return the single file path
     private static String getFilePath() {
-        return CSV_DIRECTORY + CSV_FILE;
+        return dataDirectory + CSV_FILE;
     }
 
-    // Update writeItemToFile method to use a single file
-    public static void writeItemToFile(InventoryItem item) {
-        ensureDirectoryExists();
-        String filePath = getFilePath();
+    private static String getLogSegmentPath(long sequence) {
+        return dataDirectory + WAL_PREFIX + String.format("%06d", sequence) + WAL_SUFFIX;
+    }
 
-        // Read existing items
-        BinarySearchTree<InventoryItem> existingItems = readAllItems();
+    /**
+     * Moves the store to another directory, closing the current log segment.
+     * Items loaded from the old directory must not be saved afterwards.
+     * @param directory The directory, created on first use
+     */
+    public static synchronized void setDataDirectory(String directory) {
+        closeLogSegment();
+        dataDirectory = directory.endsWith("/") ? directory : directory + "/";
+        walSegment = 1;
+        walRecordCount = 0;
+        walTombstoneCount = 0;
+        synchronized (SNAPSHOT_LOCK) {
+            lastSnapshotSegment = 0;
+        }
+    }
 
-        // Add or update item
-        existingItems.add(item);
+    /**
+     * Returns the directory holding the store
+     * @return The directory path
+     */
+    public static String getDataDirectory() {
+        return dataDirectory;
+    }
 
-        // Write all items back to file
-        try (PrintWriter writer = new PrintWriter(new FileWriter(filePath))) {
-            // Write header
-            writer.println("itemId,name,category,quantity,price,supplier");
+    /**
+     * Checks whether mutations are appended to the write-ahead log
+     * @return true if the log is used, false if every save rewrites the CSV file
+     */
+    public static boolean isWriteAheadLogEnabled() {
+        return writeAheadLogEnabled;
+    }
 
-            // Write items using in-order traversal
-            existingItems.inOrderTraversal(currentItem -> {
-                writer.println(
-                        currentItem.getItemId() + "," +
-                                escapeCSV(currentItem.getName()) + "," +
-                                escapeCSV(currentItem.getCategory()) + "," +
-                                currentItem.getQuantity() + "," +
-                                currentItem.getPrice() + "," +
-                                escapeCSV(currentItem.getSupplier())
-                );
-            });
-            System.out.println("Item saved successfully to " + filePath);
+    /**
+     * Switches between write-ahead logging and full CSV rewrites
+     * @param enabled true to append mutations to the log
+     */
+    public static void setWriteAheadLogEnabled(boolean enabled) {
+        writeAheadLogEnabled = enabled;
+    }
+
+    /**
+     * Switches between group commit and one write and fsync per log append
+     * @param enabled true to let concurrent appends share a commit
+     */
+    public static void setGroupCommitEnabled(boolean enabled) {
+        groupCommitEnabled = enabled;
+    }
+
+    /**
+     * Sets how group commit trades commit latency for fewer fsyncs
+     * @param maxBatchSize Maximum number of appends committed together
+     * @param maxWaitMicros How long a commit may wait for more appends; 0 never delays one
+     */
+    public static void configureGroupCommit(int maxBatchSize, long maxWaitMicros) {
+        groupCommitLog.configure(maxBatchSize, maxWaitMicros);
+    }
+
+    /**
+     * Returns the group commit scheduler, for its batch size and latency statistics
+     * @return The scheduler
+     */
+    public static GroupCommitLog getGroupCommitLog() {
+        return groupCommitLog;
+    }
+
+    /**
+     * Returns the number of log records written or replayed since the last checkpoint
+     * @return The record count
+     */
+    public static synchronized int getLogRecordCount() {
+        return walRecordCount;
+    }
+
+    /**
+     * Returns the number of delete tombstones written since the last checkpoint
+     * @return The tombstone count
+     */
+    public static synchronized int getTombstoneCount() {
+        return walTombstoneCount;
+    }
+
+    /**
+     * Writes every item of the in-memory store to the CSV file
+     * @param items The items to persist
+     * @return true if the file was written successfully
+     */
+    public static synchronized boolean saveAllItems(BinarySearchTree<InventoryItem> items) {
+        return writeSnapshot(items::inOrderTraversal, walSegment - 1);
+    }
+
+    /**
+     * Appends a create or update of an item to the write-ahead log
+     * @param item The item in its new state
+     * @return true if the record is durably written
+     */
+    public static boolean appendUpsertRecord(InventoryItem item) {
+        return appendLogRecord(UPSERT_RECORD + "," + formatCSVRow(item), 1, 0);
+    }
+
+    /**
+     * Appends a tombstone for a deleted item to the write-ahead log
+     * @param itemId The ID of the deleted item
+     * @return true if the record is durably written
+     */
+    public static boolean appendDeleteRecord(int itemId) {
+        return appendLogRecord(DELETE_RECORD + "," + itemId, 1, 1);
+    }
+
+    /**
+     * Appends a quantity change of an item to the write-ahead log, instead
+     * of the whole record
+     * @param itemId The ID of the item
+     * @param delta The amount added to its quantity, negative if stock was taken out
+     * @return true if the record is durably written
+     */
+    public static boolean appendQuantityRecord(int itemId, int delta) {
+        return appendLogRecord(ADJUST_RECORD + "," + itemId + "," + delta, 1, 0);
+    }
+
+    /**
+     * Appends the changes of a batch to the write-ahead log with one write
+     * and one fsync. The records are framed by a header holding their count,
+     * so replay applies either all of them or, if the write was torn by a
+     * crash, none.
+     * @param upserts The created and updated items in their new state
+     * @param deletedIds The IDs of the deleted items
+     * @return true if the whole batch is durably written
+     */
+    public static boolean appendBatch(CustomArrayList<InventoryItem> upserts,
+                                                   CustomArrayList<Integer> deletedIds) {
+        int count = upserts.size() + deletedIds.size();
+        if (count == 0) {
+            return true;
+        }
+
+        StringBuilder records = new StringBuilder();
+        records.append(BATCH_RECORD).append(',').append(count);
+        for (int i = 0; i < upserts.size(); i++) {
+            records.append('\n').append(UPSERT_RECORD).append(',').append(formatCSVRow(upserts.get(i)));
+        }
+        for (int i = 0; i < deletedIds.size(); i++) {
+            records.append('\n').append(DELETE_RECORD).append(',').append(deletedIds.get(i));
+        }
+
+        return appendLogRecord(records.toString(), count, deletedIds.size());
+    }
+
+    /**
+     * Makes records durable and waits until they are. With group commit the
+     * records share a write and fsync with those of concurrent callers.
+     * @param records One or more newline-separated records
+     * @param count The number of item records, for the compaction trigger
+     * @param tombstones The number of delete records among them
+     */
+    private static boolean appendLogRecord(String records, int count, int tombstones) {
+        if (groupCommitEnabled) {
+            return groupCommitLog.submit(records, count, tombstones).join();
+        }
+        return writeLogRecords((records + "\n").getBytes(StandardCharsets.UTF_8), count, tombstones);
+    }
+
+    /**
+     * Writes newline-terminated records to the current segment in one write, then fsyncs
+     */
+    private static synchronized boolean writeLogRecords(byte[] data, int count, int tombstones) {
+        long timer = Metrics.start();
+        long start = -1;
+        try {
+            if (walStream == null) {
+                ensureDirectoryExists();
+                walStream = new FileOutputStream(getLogSegmentPath(walSegment), true);
+            }
+            start = walStream.getChannel().size();
+            walStream.write(data);
+            walStream.getFD().sync();
+            walRecordCount += count;
+            walTombstoneCount += tombstones;
+            Metrics.count(Metrics.Counter.BYTES_WRITTEN, data.length);
+            Metrics.count(Metrics.Counter.LOG_RECORDS_WRITTEN, count);
+            return true;
         } catch (IOException e) {
-            System.out.println("Error saving data: " + e.getMessage());
+            System.out.println("Error appending to write-ahead log: " + e.getMessage());
             e.printStackTrace();
+            Metrics.count(Metrics.Counter.IO_ERRORS, 1);
+            discardPartialRecords(start);
+            return false;
+        } finally {
+            Metrics.record(Metrics.Operation.FILE_APPEND_LOG, timer);
         }
     }
 
-    // Update deleteItemFromFile method to use a single file and update IDs
-    public static boolean deleteItemFromFile(int itemId) {
-        ensureDirectoryExists();
-        String filePath = getFilePath();
-        File file = new File(filePath);
+    /**
+     * Cuts off whatever part of a failed append reached the log, so later
+     * records are not read as its continuation
+     */
+    private static void discardPartialRecords(long start) {
+        if (walStream == null || start < 0) {
+            return;
+        }
+        try {
+            walStream.getChannel().truncate(start);
+        } catch (IOException e) {
+            // Start a new segment; replay treats the damaged tail of this one as torn
+            closeLogSegment();
+            walSegment++;
+        }
+    }
 
-        if (!file.exists()) {
-            return false;
+    /**
+     * Folds the write-ahead log into a fresh CSV snapshot and removes the
+     * segments it covers. Later records go to a new segment.
+     * @param items The current in-memory store
+     * @return true if the snapshot was written
+     */
+    public static boolean checkpoint(BinarySearchTree<InventoryItem> items) {
+        return writeCheckpoint(items::inOrderTraversal, rotateLogSegment());
+    }
+
+    /**
+     * Closes the current log segment so later records go to a new one.
+     * The caller must capture the items for the checkpoint before any
+     * further mutation is logged.
+     * @return The sequence number of the last segment the checkpoint will cover
+     */
+    public static synchronized long rotateLogSegment() {
+        closeLogSegment();
+        long covered = walSegment;
+        walSegment++;
+        walRecordCount = 0;
+        walTombstoneCount = 0;
+        return covered;
+    }
+
+    /**
+     * Writes a snapshot covering every segment up to the given one, then
+     * deletes those segments. Deleted items are simply not written, which
+     * reclaims the space of their records and tombstones.
+     * @param items Source that feeds every live item to the consumer, in ID order
+     * @param coveredSegment The value returned by rotateLogSegment
+     * @return true if the snapshot was written
+     */
+    public static boolean writeCheckpoint(Consumer<Consumer<InventoryItem>> items, long coveredSegment) {
+        if (!writeSnapshot(items, coveredSegment)) {
+            return false; // Keep the segments, they are still the only copy of those records
         }
 
-        BinarySearchTree<InventoryItem> items = readAllItems();
-        InventoryItem key = new InventoryItem(itemId, "", "", 0, 0.0, "");
-        boolean deleted = items.remove(key);
-
-        if (deleted) {
-            // Update IDs for items with higher IDs
-            CustomArrayList<InventoryItem> itemList = new CustomArrayList<>();
-            items.inOrderTraversal(itemList::add);
-        
-            // Clear the BST
-            items = new BinarySearchTree<>(Comparator.comparingInt(InventoryItem::getItemId));
-        
-            // Update IDs and add back to BST
-            for (int i = 0; i < itemList.size(); i++) {
-                InventoryItem item = itemList.get(i);
-                if (item.getItemId() > itemId) {
-                    item.setItemId(item.getItemId() - 1);
-                }
-                items.add(item);
+        for (long sequence : listLogSegments()) {
+            if (sequence <= coveredSegment) {
+                new File(getLogSegmentPath(sequence)).delete();
             }
+        }
+        return true;
+    }
 
-            try (PrintWriter writer = new PrintWriter(new FileWriter(filePath))) {
-                // Write header
-                writer.println("itemId,name,category,quantity,price,supplier");
-
-                // Write remaining items
-                items.inOrderTraversal(item -> {
-                    writer.println(
-                            item.getItemId() + "," +
-                                    escapeCSV(item.getName()) + "," +
-                                    escapeCSV(item.getCategory()) + "," +
-                                    item.getQuantity() + "," +
-                                    item.getPrice() + "," +
-                                    escapeCSV(item.getSupplier())
-                    );
-                });
-                System.out.println("Item deleted successfully from " + filePath);
-                return true;
+    private static void closeLogSegment() {
+        if (walStream != null) {
+            try {
+                walStream.close();
             } catch (IOException e) {
-                System.out.println("Error updating file after deletion: " + e.getMessage());
-                e.printStackTrace();
+                System.out.println("Error closing write-ahead log: " + e.getMessage());
             }
+            walStream = null;
         }
+    }
+
+    /**
+     * Writes the snapshot to a temporary file and atomically moves it into place,
+     * so a crash never leaves a half-written CSV file behind
+     */
+    private static boolean writeSnapshot(Consumer<Consumer<InventoryItem>> items, long coveredSegment) {
+        synchronized (SNAPSHOT_LOCK) {
+            if (coveredSegment < lastSnapshotSegment) {
+                return true; // A newer snapshot is already in place and covers everything this one would
+            }
+            long timer = Metrics.start();
+            boolean written = writeSnapshotFile(items, coveredSegment);
+            Metrics.record(Metrics.Operation.FILE_WRITE_SNAPSHOT, timer);
+            if (!written) {
+                return false;
+            }
+            lastSnapshotSegment = coveredSegment;
+            return true;
+        }
+    }
+
+    private static boolean writeSnapshotFile(Consumer<Consumer<InventoryItem>> items, long coveredSegment) {
+        ensureDirectoryExists();
+        File file = new File(getFilePath());
+        File tempFile = new File(getFilePath() + ".tmp");
+
+        try (FileOutputStream out = new FileOutputStream(tempFile);
+             BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8))) {
+            // Write header
+            writer.write(CSV_HEADER);
+            writer.newLine();
+            if (coveredSegment > 0) {
+                writer.write(CHECKPOINT_MARKER + "," + coveredSegment);
+                writer.newLine();
+            }
 
-        return false;
+            // Write items using in-order traversal
+            final IOException[] failure = {null};
+            items.accept(currentItem -> {
+                if (failure[0] == null) {
+                    try {
+                        writer.write(formatCSVRow(currentItem));
+                        writer.newLine();
+                    } catch (IOException e) {
+                        failure[0] = e;
+                    }
+                }
+            });
+            if (failure[0] != null) {
+                throw failure[0];
+            }
+            writer.flush();
+            out.getFD().sync();
+            Metrics.count(Metrics.Counter.BYTES_WRITTEN, out.getChannel().size());
+        } catch (IOException e) {
+            System.out.println("Error saving data: " + e.getMessage());
+            e.printStackTrace();
+            Metrics.count(Metrics.Counter.IO_ERRORS, 1);
+            tempFile.delete();
+            return false;
+        }
+
+        try {
+            Files.move(tempFile.toPath(), file.toPath(),
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            return true;
+        } catch (IOException e) {
+            System.out.println("Error replacing data file: " + e.getMessage());
+            e.printStackTrace();
+            Metrics.count(Metrics.Counter.IO_ERRORS, 1);
+            return false;
+        }
     }
 
-    // Update readAllItems method to read from a single file
-    public static BinarySearchTree<InventoryItem> readAllItems() {
+    /**
+     * Loads the CSV snapshot and replays any newer write-ahead log segments
+     * over it, reconstructing the state as of the last durable mutation
+     * @return The loaded items, empty if nothing has been saved yet
+     */
+    public static synchronized BinarySearchTree<InventoryItem> readAllItems() {
+        long timer = Metrics.start();
         ensureDirectoryExists();
         String filePath = getFilePath();
         BinarySearchTree<InventoryItem> items = new BinarySearchTree<>(
                 Comparator.comparingInt(InventoryItem::getItemId)
         );
         File file = new File(filePath);
+        long coveredSegment = 0;
+
+        long startTime = System.nanoTime();
+        long rows = 0;
+
+        if (file.exists()) {
+            Metrics.count(Metrics.Counter.BYTES_READ, file.length());
+            try (CSVReader reader = CSVReader.open(filePath)) {
+                // Skip header
+                reader.nextRecord();
+
+                // Read items; snapshots are written in ID order, so the tree can be built in linear time
+                CustomArrayList<InventoryItem> loaded = new CustomArrayList<>();
+                boolean sorted = true;
+                while (reader.nextRecord()) {
+                    if (reader.fieldEquals(0, CHECKPOINT_MARKER)) {
+                        coveredSegment = Long.parseLong(reader.getString(1));
+                        continue;
+                    }
+                    long parseTimer = Metrics.start();
+                    InventoryItem item = parseItem(reader, 0);
+                    Metrics.record(Metrics.Operation.FILE_PARSE_ROW, parseTimer);
+                    if (item != null) {
+                        if (!loaded.isEmpty() && loaded.get(loaded.size() - 1).getItemId() >= item.getItemId()) {
+                            sorted = false;
+                        }
+                        loaded.add(item);
+                        rows++;
+                    }
+                }
 
-        if (!file.exists()) {
-            return items; // Return empty BST if file doesn't exist
+                if (sorted) {
+                    items.buildFromSorted(loaded);
+                } else {
+                    for (int i = 0; i < loaded.size(); i++) {
+                        items.add(loaded.get(i));
+                    }
+                }
+            } catch (FileNotFoundException e) {
+                System.out.println("File not found: " + filePath);
+            } catch (Exception e) {
+                System.out.println("Error reading data: " + e.getMessage());
+                e.printStackTrace();
+                Metrics.count(Metrics.Counter.IO_ERRORS, 1);
+            }
         }
-
-        try (Scanner scanner = new Scanner(file)) {
-            // Skip header
-            if (scanner.hasNextLine()) {
-                scanner.nextLine();
+        lastLoadRows = rows;
+        lastLoadNanos = System.nanoTime() - startTime;
+        Metrics.count(Metrics.Counter.ROWS_PARSED, rows);
+
+        // Replay the segments written after the snapshot, oldest first
+        closeLogSegment();
+        walRecordCount = 0;
+        walTombstoneCount = 0;
+        long lastSegment = coveredSegment;
+        for (long sequence : listLogSegments()) {
+            if (sequence > coveredSegment) {
+                walRecordCount += replayLogSegment(sequence, items);
             }
+            lastSegment = Math.max(lastSegment, sequence);
+        }
+        walSegment = lastSegment + 1;
 
-            // Read items
-            while (scanner.hasNextLine()) {
-                String line = scanner.nextLine();
-                InventoryItem item = parseCSVLine(line);
-                if (item != null) {
-                    items.add(item);
+        Metrics.record(Metrics.Operation.FILE_LOAD, timer);
+        return items;
+    }
+
+    /**
+     * Applies the records of one log segment to the items. A trailing record
+     * without its newline was torn by a crash and is ignored, and so is a
+     * batch whose records were not all written. A quantity change that
+     * would leave the range 0 to Integer.MAX_VALUE means the log is corrupt,
+     * and stops the replay of the segment like any other unreadable record.
+     */
+    private static int replayLogSegment(long sequence, BinarySearchTree<InventoryItem> items) {
+        long timer = Metrics.start();
+        int applied = 0;
+        Metrics.count(Metrics.Counter.BYTES_READ, new File(getLogSegmentPath(sequence)).length());
+        try (CSVReader reader = CSVReader.open(getLogSegmentPath(sequence))) {
+            while (reader.nextRecord() && reader.isRecordTerminated()) {
+                if (reader.fieldEquals(0, BATCH_RECORD)) {
+                    int count = reader.getInt(1);
+                    CustomArrayList<Object> batch = new CustomArrayList<>(count);
+                    while (batch.size() < count && reader.nextRecord() && reader.isRecordTerminated()) {
+                        batch.add(parseLogRecord(reader));
+                    }
+                    if (batch.size() < count) {
+                        break;
+                    }
+                    for (int i = 0; i < count; i++) {
+                        applied += applyLogRecord(batch.get(i), items, sequence);
+                    }
+                } else {
+                    applied += applyLogRecord(parseLogRecord(reader), items, sequence);
                 }
             }
-        } catch (FileNotFoundException e) {
-            System.out.println("File not found: " + filePath);
-        } catch (Exception e) {
-            System.out.println("Error reading data: " + e.getMessage());
+        } catch (IOException | RuntimeException e) {
+            System.out.println("Error replaying write-ahead log: " + e.getMessage());
             e.printStackTrace();
+            Metrics.count(Metrics.Counter.IO_ERRORS, 1);
         }
+        Metrics.count(Metrics.Counter.LOG_RECORDS_REPLAYED, applied);
+        Metrics.record(Metrics.Operation.FILE_REPLAY_SEGMENT, timer);
+        return applied;
+    }
 
-        return items;
+    /**
+     * Parses an upsert record into its item, a delete record into the
+     * deleted ID and an adjust record into its quantity change; anything
+     * else yields null
+     */
+    private static Object parseLogRecord(CSVReader reader) {
+        if (reader.fieldEquals(0, UPSERT_RECORD)) {
+            return parseItem(reader, 1);
+        }
+        if (reader.fieldEquals(0, DELETE_RECORD)) {
+            return reader.getInt(1);
+        }
+        if (reader.fieldEquals(0, ADJUST_RECORD)) {
+            return new QuantityDelta(reader.getInt(1), reader.getInt(2));
+        }
+        return null;
+    }
+
+    // A replayed quantity change
+    private static class QuantityDelta {
+        final int itemId;
+        final int delta;
+
+        QuantityDelta(int itemId, int delta) {
+            this.itemId = itemId;
+            this.delta = delta;
+        }
+    }
+
+    private static int applyLogRecord(Object record, BinarySearchTree<InventoryItem> items, long sequence)
+            throws IOException {
+        if (record instanceof InventoryItem) {
+            items.add((InventoryItem) record);
+            return 1;
+        }
+        if (record instanceof Integer) {
+            items.remove(new InventoryItem((Integer) record, "", "", 0, 0.0, ""));
+            walTombstoneCount++;
+            return 1;
+        }
+        if (record instanceof QuantityDelta) {
+            QuantityDelta change = (QuantityDelta) record;
+            InventoryItem item = items.findBy(stored -> Integer.compare(change.itemId, stored.getItemId()));
+            if (item != null) {
+                long quantity = (long) item.getQuantity() + change.delta;
+                if (quantity < 0 || quantity > Integer.MAX_VALUE) {
+                    throw new IOException("Quantity of item " + change.itemId + " out of range (" + quantity
+                            + ") in log segment " + sequence);
+                }
+                item.setQuantity((int) quantity);
+            }
+            return 1;
+        }
+        return 0;
     }
 
     /**
-     * Reads a specific item by ID
-     * @param itemId The ID of the item to find
-     * @return The item if found, null otherwise
+     * Lists the sequence numbers of the log segments on disk
+     * @return The sequence numbers in ascending order
      */
-    public static InventoryItem readItemById(int itemId) {
-        BinarySearchTree<InventoryItem> allItems = readAllItems();
-        InventoryItem key = new InventoryItem(itemId, "", "", 0, 0.0, "");
-        return allItems.find(key);
+    private static long[] listLogSegments() {
+        String[] names = new File(dataDirectory).list();
+        if (names == null) {
+            return new long[0];
+        }
+
+        long[] sequences = new long[names.length];
+        int count = 0;
+        for (String name : names) {
+            if (name.startsWith(WAL_PREFIX) && name.endsWith(WAL_SUFFIX)) {
+                try {
+                    sequences[count++] = Long.parseLong(
+                            name.substring(WAL_PREFIX.length(), name.length() - WAL_SUFFIX.length()));
+                } catch (NumberFormatException e) {
+                    count--; // Not one of our segments
+                }
+            }
+        }
+        sequences = Arrays.copyOf(sequences, count);
+        Arrays.sort(sequences);
+        return sequences;
     }
 
     /**
-     * Parses a CSV line into an InventoryItem
-     * @param line The CSV line to parse
-     * @return The parsed InventoryItem
+     * Formats an item as a CSV row
+     * @param item The item to format
+     * @return The row without a line terminator
      */
-    private static InventoryItem parseCSVLine(String line) {
+    static String formatCSVRow(InventoryItem item) {
+        return item.getItemId() + "," +
+                escapeCSV(item.getName()) + "," +
+                escapeCSV(item.getCategory()) + "," +
+                item.getQuantity() + "," +
+                item.getPrice() + "," +
+                escapeCSV(item.getSupplier());
+    }
+
+    /**
+     * Reads the persisted item ID high-water mark
+     * @return The first ID that was never reserved, 0 if none is stored
+     */
+    public static int readIdHighWaterMark() {
+        File file = new File(dataDirectory + ID_FILE);
+        if (!file.exists()) {
+            return 0;
+        }
+
+        long timer = Metrics.start();
+        try {
+            byte[] content = Files.readAllBytes(file.toPath());
+            Metrics.count(Metrics.Counter.BYTES_READ, content.length);
+            return Integer.parseInt(new String(content, StandardCharsets.UTF_8).trim());
+        } catch (IOException | NumberFormatException e) {
+            System.out.println("Error reading ID high-water mark: " + e.getMessage());
+            Metrics.count(Metrics.Counter.IO_ERRORS, 1);
+            return 0;
+        } finally {
+            Metrics.record(Metrics.Operation.FILE_ID_MARK, timer);
+        }
+    }
+
+    /**
+     * Durably replaces the persisted item ID high-water mark
+     * @param highWaterMark The first ID that is not reserved yet
+     * @return true if the value was written
+     */
+    public static boolean writeIdHighWaterMark(int highWaterMark) {
+        ensureDirectoryExists();
+        File file = new File(dataDirectory + ID_FILE);
+        File tempFile = new File(dataDirectory + ID_FILE + ".tmp");
+
+        long timer = Metrics.start();
         try {
-            String[] parts = line.split(",(?=([^\"]*\"[^\"]*\")*[^\"]*$)"); // Split by comma, respecting quotes
+            byte[] content = (highWaterMark + "\n").getBytes(StandardCharsets.UTF_8);
+            try (FileOutputStream out = new FileOutputStream(tempFile)) {
+                out.write(content);
+                out.getFD().sync();
+            }
+            Files.move(tempFile.toPath(), file.toPath(),
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            Metrics.count(Metrics.Counter.BYTES_WRITTEN, content.length);
+            return true;
+        } catch (IOException e) {
+            System.out.println("Error saving ID high-water mark: " + e.getMessage());
+            e.printStackTrace();
+            Metrics.count(Metrics.Counter.IO_ERRORS, 1);
+            return false;
+        } finally {
+            Metrics.record(Metrics.Operation.FILE_ID_MARK, timer);
+        }
+    }
 
-            if (parts.length >= 6) {
-                int itemId = Integer.parseInt(parts[0].trim());
-                String name = unescapeCSV(parts[1].trim());
-                String category = unescapeCSV(parts[2].trim());
-                int quantity = Integer.parseInt(parts[3].trim());
-                double price = Double.parseDouble(parts[4].trim());
-                String supplier = unescapeCSV(parts[5].trim());
+    /**
+     * Returns the number of items loaded by the last readAllItems call
+     * @return The row count
+     */
+    public static long getLastLoadRows() {
+        return lastLoadRows;
+    }
+
+    /**
+     * Returns the snapshot load throughput of the last readAllItems call
+     * @return Rows parsed per second, 0 if nothing was loaded
+     */
+    public static double getLastLoadRowsPerSecond() {
+        if (lastLoadRows == 0 || lastLoadNanos == 0) {
+            return 0;
+        }
+        return lastLoadRows * 1_000_000_000.0 / lastLoadNanos;
+    }
+
+    /**
+     * Builds an InventoryItem from the current CSV record
+     * @param reader The reader positioned on the record
+     * @param offset Index of the itemId field
+     * @return The parsed InventoryItem, or null if the record is malformed
+     */
+    private static InventoryItem parseItem(CSVReader reader, int offset) {
+        try {
+            if (reader.getFieldCount() >= offset + 6) {
+                int itemId = reader.getInt(offset);
+                String name = reader.getString(offset + 1);
+                String category = reader.getString(offset + 2);
+                int quantity = reader.getInt(offset + 3);
+                double price = reader.getDouble(offset + 4);
+                String supplier = reader.getString(offset + 5);
 
                 return new InventoryItem(itemId, name, category, quantity, price, supplier);
             }
@@ -192,6 +745,7 @@ public class FileManager {
             System.out.println("Error parsing CSV line: " + e.getMessage());
         }
 
+        Metrics.count(Metrics.Counter.PARSE_ERRORS, 1);
         return null;
     }
 
@@ -206,46 +760,12 @@ public class FileManager {
         }
 
         // If the value contains comma, newline or double quote, wrap in quotes and escape internal quotes
-        if (value.contains(",") || value.contains("\"") || value.contains("\n")) {
+        // Surrounding whitespace is quoted too, since unquoted fields are trimmed on load
+        if (value.contains(",") || value.contains("\"") || value.contains("\n") || value.contains("\r")
+                || (!value.isEmpty() && (value.charAt(0) <= ' ' || value.charAt(value.length() - 1) <= ' '))) {
             return "\"" + value.replace("\"", "\"\"") + "\"";
         }
 
         return value;
     }
-
-    /**
-     * Unescapes CSV formatted string
-     * @param value The string to unescape
-     * @return The unescaped string
-     */
-    private static String unescapeCSV(String value) {
-        if (value == null) {
-            return "";
-        }
-
-        // If the value is wrapped in quotes, remove them and unescape internal quotes
-        if (value.startsWith("\"") && value.endsWith("\"")) {
-            return value.substring(1, value.length() - 1).replace("\"\"", "\"");
-        }
-
-        return value;
-    }
-
-    // Add method to get the next available ID
-    public static int getNextAvailableId() {
-        BinarySearchTree<InventoryItem> items = readAllItems();
-        if (items.isEmpty()) {
-            return 1; // Start with 1 if no items exist
-        }
-    
-        // Find the highest ID
-        final int[] highestId = {0};
-        items.inOrderTraversal(item -> {
-            if (item.getItemId() > highestId[0]) {
-                highestId[0] = item.getItemId();
-            }
-        });
-    
-        return highestId[0] + 1;
-    }
 }
@@ -0,0 +1,258 @@
+package src;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Group-commit scheduler for the write-ahead log
+ * Records submitted by concurrent callers are collected by one writer
+ * thread and persisted together with a single write and a single fsync,
+ * after which every caller's future completes. While one commit is being
+ * flushed the next batch builds up, so throughput grows with the number of
+ * writers instead of being capped at one fsync per record.
+ */
+public class GroupCommitLog {
+
+    /**
+     * Durably writes one group of records
+     */
+    public interface Sink {
+        /**
+         * @param data The newline-terminated records of the whole group
+         * @param records The number of item records in the group
+         * @param tombstones The number of delete records in the group
+         * @return true if the group was written and synced
+         */
+        boolean write(byte[] data, int records, int tombstones);
+    }
+
+    // A submitted record or framed batch of records
+    private static class Request {
+        final String records;
+        final int recordCount;
+        final int tombstones;
+        final long submittedNanos = System.nanoTime();
+        final CompletableFuture<Boolean> done = new CompletableFuture<>();
+
+        Request(String records, int recordCount, int tombstones) {
+            this.records = records;
+            this.recordCount = recordCount;
+            this.tombstones = tombstones;
+        }
+    }
+
+    private final Sink sink;
+    private final LinkedBlockingQueue<Request> queue = new LinkedBlockingQueue<>();
+    private Thread writer;
+
+    // Upper bound on the requests in one commit
+    private volatile int maxBatchSize = 1024;
+
+    // How long the writer waits for more requests before committing; 0 commits whatever is queued
+    private volatile long maxWaitNanos = 0;
+
+    // Statistics, written only by the writer thread
+    private volatile long commits;
+    private volatile long committedRequests;
+    private volatile int largestBatch;
+    private volatile long totalCommitNanos;
+    private volatile long totalLatencyNanos;
+    private volatile long maxLatencyNanos;
+
+    /**
+     * Constructor
+     * @param sink Receives each group to write
+     */
+    public GroupCommitLog(Sink sink) {
+        this.sink = sink;
+    }
+
+    /**
+     * Sets the trade-off between commit latency and fsyncs per record
+     * @param maxBatchSize Maximum number of requests committed together
+     * @param maxWaitMicros How long to wait for more requests once one is queued;
+     *                      0 never delays a commit, larger values give bigger batches
+     */
+    public void configure(int maxBatchSize, long maxWaitMicros) {
+        if (maxBatchSize < 1 || maxWaitMicros < 0) {
+            throw new IllegalArgumentException("Illegal group commit settings: " + maxBatchSize + ", " + maxWaitMicros);
+        }
+        this.maxBatchSize = maxBatchSize;
+        this.maxWaitNanos = TimeUnit.MICROSECONDS.toNanos(maxWaitMicros);
+    }
+
+    /**
+     * Queues records for the next commit
+     * @param records One or more newline-separated records, without the final newline
+     * @param recordCount The number of item records
+     * @param tombstones The number of delete records among them
+     * @return A future that completes with true once the records are durable, or false if the write failed
+     */
+    public CompletableFuture<Boolean> submit(String records, int recordCount, int tombstones) {
+        Request request = new Request(records, recordCount, tombstones);
+        ensureStarted();
+        queue.add(request);
+        return request.done;
+    }
+
+    private synchronized void ensureStarted() {
+        if (writer == null) {
+            writer = new Thread(this::run, "inventory-group-commit");
+            writer.setDaemon(true);
+            writer.start();
+        }
+    }
+
+    private void run() {
+        ArrayList<Request> batch = new ArrayList<>();
+        StringBuilder buffer = new StringBuilder();
+        while (true) {
+            try {
+                batch.add(queue.take());
+                collect(batch);
+            } catch (InterruptedException e) {
+                if (batch.isEmpty()) {
+                    continue;
+                }
+            }
+            commit(batch, buffer);
+            batch.clear();
+        }
+    }
+
+    /**
+     * Adds what is already queued and, if configured, waits for more
+     */
+    private void collect(ArrayList<Request> batch) throws InterruptedException {
+        int limit = maxBatchSize;
+        queue.drainTo(batch, limit - batch.size());
+        long wait = maxWaitNanos;
+        if (wait <= 0) {
+            return;
+        }
+
+        long deadline = System.nanoTime() + wait;
+        while (batch.size() < limit) {
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                return;
+            }
+            Request next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+            if (next == null) {
+                return;
+            }
+            batch.add(next);
+            queue.drainTo(batch, limit - batch.size());
+        }
+    }
+
+    private void commit(ArrayList<Request> batch, StringBuilder buffer) {
+        buffer.setLength(0);
+        int records = 0;
+        int tombstones = 0;
+        for (Request request : batch) {
+            buffer.append(request.records).append('\n');
+            records += request.recordCount;
+            tombstones += request.tombstones;
+        }
+
+        long start = System.nanoTime();
+        boolean written;
+        try {
+            written = sink.write(buffer.toString().getBytes(StandardCharsets.UTF_8), records, tombstones);
+        } catch (RuntimeException e) {
+            System.out.println("Error committing write-ahead log records: " + e.getMessage());
+            e.printStackTrace();
+            written = false;
+        }
+        long end = System.nanoTime();
+
+        long latencySum = 0;
+        long latencyMax = maxLatencyNanos;
+        for (Request request : batch) {
+            long latency = end - request.submittedNanos;
+            latencySum += latency;
+            latencyMax = Math.max(latencyMax, latency);
+        }
+        commits++;
+        committedRequests += batch.size();
+        largestBatch = Math.max(largestBatch, batch.size());
+        totalCommitNanos += end - start;
+        totalLatencyNanos += latencySum;
+        maxLatencyNanos = latencyMax;
+
+        for (Request request : batch) {
+            request.done.complete(written);
+        }
+    }
+
+    /**
+     * Returns the number of writes and fsyncs done so far
+     * @return The commit count
+     */
+    public long getCommitCount() {
+        return commits;
+    }
+
+    /**
+     * Returns the number of requests committed so far
+     * @return The request count
+     */
+    public long getCommittedRequests() {
+        return committedRequests;
+    }
+
+    /**
+     * Returns the average number of requests per commit
+     * @return The average batch size, 0 before the first commit
+     */
+    public double getAverageBatchSize() {
+        long count = commits;
+        return count == 0 ? 0 : (double) committedRequests / count;
+    }
+
+    /**
+     * Returns the largest number of requests committed together
+     * @return The largest batch size
+     */
+    public int getLargestBatchSize() {
+        return largestBatch;
+    }
+
+    /**
+     * Returns the average time one write plus fsync took
+     * @return The average in microseconds
+     */
+    public double getAverageCommitMicros() {
+        long count = commits;
+        return count == 0 ? 0 : totalCommitNanos / 1000.0 / count;
+    }
+
+    /**
+     * Returns the average time from submitting a request to its completion
+     * @return The average in microseconds
+     */
+    public double getAverageLatencyMicros() {
+        long count = committedRequests;
+        return count == 0 ? 0 : totalLatencyNanos / 1000.0 / count;
+    }
+
+    /**
+     * Returns the longest time from submitting a request to its completion
+     * @return The maximum in microseconds
+     */
+    public double getMaxLatencyMicros() {
+        return maxLatencyNanos / 1000.0;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d commits, %d requests, %.1f requests/commit (max %d), "
+                        + "%.0f us/commit, latency avg %.0f us, max %.0f us",
+                getCommitCount(), getCommittedRequests(), getAverageBatchSize(), getLargestBatchSize(),
+                getAverageCommitMicros(), getAverageLatencyMicros(), getMaxLatencyMicros());
+    }
+}
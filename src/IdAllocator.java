@@ -0,0 +1,126 @@
+package src;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Hands out item IDs in O(1) without scanning the inventory
+ * A high-water mark is persisted ahead of the IDs in use, one block at a
+ * time, so IDs are never reused after a restart or a crash. Safe for
+ * concurrent callers.
+ */
+public class IdAllocator {
+
+    // IDs reserved on disk each time the high-water mark is raised
+    private static final int DEFAULT_BLOCK_SIZE = 1000;
+
+    private final int blockSize;
+    private final AtomicInteger nextId;
+
+    // Every ID below this value is covered by the persisted high-water mark
+    private volatile int reservedLimit;
+
+    /**
+     * Constructor starts after the highest ID known on disk or in the store
+     * @param highestExistingId The highest item ID currently in the store, 0 if empty
+     */
+    public IdAllocator(int highestExistingId) {
+        this(highestExistingId, DEFAULT_BLOCK_SIZE);
+    }
+
+    /**
+     * Constructor with a custom reservation block size
+     * @param highestExistingId The highest item ID currently in the store, 0 if empty
+     * @param blockSize Number of IDs reserved per high-water mark write
+     */
+    public IdAllocator(int highestExistingId, int blockSize) {
+        if (blockSize < 1) {
+            throw new IllegalArgumentException("Illegal block size: " + blockSize);
+        }
+        this.blockSize = blockSize;
+        int persistedMark = FileManager.readIdHighWaterMark();
+        int first = Math.max(Math.max(persistedMark, following(highestExistingId)), 1);
+        this.nextId = new AtomicInteger(first);
+        this.reservedLimit = first;
+    }
+
+    /**
+     * Allocates the next item ID
+     * @return A new, never used ID
+     * @throws IllegalStateException If the IDs are exhausted or the high-water mark could not be persisted
+     */
+    public int nextId() {
+        return reserveBlock(1);
+    }
+
+    /**
+     * Reserves a contiguous block of IDs, e.g. for a bulk loader
+     * @param count The number of IDs to reserve
+     * @return The first ID of the block; the block ends at first + count - 1
+     */
+    public int reserveBlock(int count) {
+        if (count < 1) {
+            throw new IllegalArgumentException("Illegal block count: " + count);
+        }
+
+        int first;
+        do {
+            first = nextId.get();
+            if (first > Integer.MAX_VALUE - count) {
+                throw new IllegalStateException("Item IDs exhausted");
+            }
+        } while (!nextId.compareAndSet(first, first + count));
+
+        ensureReserved(first + count);
+        return first;
+    }
+
+    /**
+     * Moves the allocator past an ID that was assigned by the caller
+     * After Integer.MAX_VALUE no ID is left, and nextId reports the IDs as exhausted.
+     * @param id An item ID that is now in use
+     * @throws IllegalStateException If the high-water mark could not be persisted
+     */
+    public void observe(int id) {
+        int next = following(id);
+        int current;
+        do {
+            current = nextId.get();
+            if (next <= current) {
+                return;
+            }
+        } while (!nextId.compareAndSet(current, next));
+
+        ensureReserved(next);
+    }
+
+    // The ID after id, or Integer.MAX_VALUE, which is never handed out, instead of overflowing
+    private static int following(int id) {
+        return id == Integer.MAX_VALUE ? Integer.MAX_VALUE : id + 1;
+    }
+
+    /**
+     * Returns the ID the next call to nextId would hand out
+     * @return The next ID
+     */
+    public int peekNextId() {
+        return nextId.get();
+    }
+
+    private void ensureReserved(int end) {
+        if (end > reservedLimit) {
+            extendReservation(end);
+        }
+    }
+
+    private synchronized void extendReservation(int end) {
+        if (end <= reservedLimit) {
+            return; // Another caller already raised it
+        }
+
+        int newLimit = end > Integer.MAX_VALUE - blockSize ? Integer.MAX_VALUE : end + blockSize;
+        if (!FileManager.writeIdHighWaterMark(newLimit)) {
+            throw new IllegalStateException("Could not persist the item ID high-water mark");
+        }
+        reservedLimit = newLimit;
+    }
+}
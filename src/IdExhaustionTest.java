@@ -0,0 +1,97 @@
+package src;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.Files;
+
+/**
+ * Checks that running out of item IDs is reported instead of wrapping
+ * around or escaping as an exception
+ * An item stored with ID Integer.MAX_VALUE leaves the allocator no ID to
+ * hand out; allocating, creating through a batch and importing must then
+ * fail cleanly and leave the store as it was, also after a reload. Runs
+ * against a temporary directory and exits with status 1 if any check failed.
+ *
+ * Usage: IdExhaustionTest
+ */
+public class IdExhaustionTest {
+
+    private static int failures;
+
+    public static void main(String[] args) throws Exception {
+        File directory = Files.createTempDirectory("inventory-ids").toFile();
+        FileManager.setDataDirectory(directory.getPath());
+        try {
+            InventoryManager manager = new InventoryManager();
+            check(manager.createItem(new InventoryItem(1, "First", "Tools", 5, 1.5, "Acme")), "create item 1");
+            check(manager.createItem(new InventoryItem(Integer.MAX_VALUE, "Last", "Tools", 5, 1.5, "Acme")),
+                    "create the item with the highest ID");
+
+            try {
+                int id = manager.allocateItemId();
+                check(false, "allocateItemId handed out " + id + " after the highest ID");
+            } catch (IllegalStateException e) {
+                check("Item IDs exhausted".equals(e.getMessage()), "unexpected message: " + e.getMessage());
+            }
+
+            InventoryBatch batch = new InventoryBatch();
+            batch.create(new InventoryItem(0, "Batched", "Tools", 1, 1.0, "Acme"));
+            check(!manager.applyBatch(batch), "a batch create was applied without an ID");
+
+            File importFile = new File(directory, "import.csv");
+            try (Writer writer = new FileWriter(importFile)) {
+                writer.write("name,category,quantity,price,supplier\n");
+                writer.write("Imported one,Tools,3,2.5,Acme\n");
+                writer.write("Imported two,Tools,4,3.5,Acme\n");
+            }
+            check(manager.importItems(importFile.getPath()) == -1, "the import did not report failure");
+            checkStore(manager, "after the failed import");
+
+            manager.close();
+            checkStore(new InventoryManager(), "after reload");
+        } finally {
+            // Closes the open log segment before its directory is deleted
+            FileManager.setDataDirectory(directory.getPath() + "-closed");
+            deleteRecursively(directory);
+        }
+
+        if (failures > 0) {
+            System.out.println(failures + " check(s) failed");
+            System.exit(1);
+        }
+        System.out.println("All checks passed");
+        System.exit(0);
+    }
+
+    /**
+     * Checks that the store holds only the two items created first
+     */
+    private static void checkStore(InventoryManager manager, String stage) {
+        check(manager.listItems(SortKey.ID, 0, 10).size() == 2, "store does not hold exactly 2 items " + stage);
+        check(manager.readItem(1) != null && manager.readItem(Integer.MAX_VALUE) != null,
+                "created items missing " + stage);
+        check(manager.searchByName("imported", 0, 10).isEmpty(), "imported items found " + stage);
+        InventoryAggregates.Summary totals = manager.getCategoryTotals("Tools");
+        check(totals != null && totals.getItemCount() == 2 && totals.getUnits() == 10,
+                "category totals changed " + stage);
+    }
+
+    private static void check(boolean condition, String description) {
+        if (!condition) {
+            failures++;
+            System.out.println("FAILED: " + description);
+        }
+    }
+
+    private static void deleteRecursively(File file) throws IOException {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                deleteRecursively(child);
+            }
+        }
+        Files.deleteIfExists(file.toPath());
+    }
+}
@@ -0,0 +1,209 @@
+package src;
+
+import src.datastructures.CustomArrayList;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Running totals of the items sharing an attribute (such as category or supplier)
+ * Each group keeps its item count, total units, stock value
+ * (quantity x price) and lowest and highest price. Adding or removing an
+ * item costs O(1) for the sums and O(log p) for the prices, p being the
+ * number of distinct prices in the group, so queries never scan items.
+ * Keys are matched case-insensitively, like AttributeIndex.
+ *
+ * add and remove change the set of groups and must not run concurrently
+ * with anything else; addQuantity only changes the sums of an existing
+ * group and may run concurrently with other addQuantity calls and with
+ * queries.
+ */
+public class InventoryAggregates {
+
+    // Stock value is kept in ten-thousandths, so sums never drift as items come and go.
+    // They stay exact while a group's value is below Long.MAX_VALUE / VALUE_SCALE,
+    // about 922 trillion.
+    private static final double VALUE_SCALE = 10_000.0;
+
+    private final Function<InventoryItem, String> keyExtractor;
+    private final HashMap<String, Group> groups = new HashMap<>();
+
+    /**
+     * Totals of one attribute value, at the time they were read
+     */
+    public static class Summary {
+        private final String key;
+        private final long itemCount;
+        private final long units;
+        private final double stockValue;
+        private final double minPrice;
+        private final double maxPrice;
+
+        Summary(String key, long itemCount, long units, double stockValue, double minPrice, double maxPrice) {
+            this.key = key;
+            this.itemCount = itemCount;
+            this.units = units;
+            this.stockValue = stockValue;
+            this.minPrice = minPrice;
+            this.maxPrice = maxPrice;
+        }
+
+        /**
+         * Returns the attribute value, spelled as by the first item that had it
+         * @return The attribute value
+         */
+        public String getKey() {
+            return key;
+        }
+
+        public long getItemCount() {
+            return itemCount;
+        }
+
+        public long getUnits() {
+            return units;
+        }
+
+        public double getStockValue() {
+            return stockValue;
+        }
+
+        public double getMinPrice() {
+            return minPrice;
+        }
+
+        public double getMaxPrice() {
+            return maxPrice;
+        }
+    }
+
+    // Running totals of one attribute value
+    private static class Group {
+        final String displayKey;
+        long itemCount;
+        final LongAdder units = new LongAdder();
+        final LongAdder scaledValue = new LongAdder();
+        // Changes whose scaled value does not fit in a long, kept unscaled
+        final DoubleAdder overflowValue = new DoubleAdder();
+        // Number of items at each price, so the extremes survive removals
+        final TreeMap<Double, Integer> prices = new TreeMap<>();
+
+        Group(String displayKey) {
+            this.displayKey = displayKey;
+        }
+    }
+
+    /**
+     * Constructor takes the attribute to group by
+     * @param keyExtractor Returns the grouping attribute of an item
+     */
+    public InventoryAggregates(Function<InventoryItem, String> keyExtractor) {
+        this.keyExtractor = keyExtractor;
+    }
+
+    /**
+     * Adds an item to the totals of its current attribute value
+     * @param item The item to add
+     */
+    public void add(InventoryItem item) {
+        String displayKey = keyExtractor.apply(item);
+        String key = normalize(displayKey);
+        Group group = groups.get(key);
+        if (group == null) {
+            group = new Group(displayKey == null ? "" : displayKey.trim());
+            groups.put(key, group);
+        }
+        group.itemCount++;
+        group.units.add(item.getQuantity());
+        addValue(group, item.getQuantity(), item.getPrice());
+        group.prices.merge(item.getPrice(), 1, Integer::sum);
+    }
+
+    /**
+     * Removes an item from the totals
+     * Must be called with the item as it was added, apart from quantity
+     * changes reported through addQuantity.
+     * @param item The item to remove
+     */
+    public void remove(InventoryItem item) {
+        String key = normalize(keyExtractor.apply(item));
+        Group group = groups.get(key);
+        if (group == null) {
+            return;
+        }
+        group.itemCount--;
+        group.units.add(-item.getQuantity());
+        addValue(group, -(long) item.getQuantity(), item.getPrice());
+        group.prices.computeIfPresent(item.getPrice(), (price, count) -> count == 1 ? null : count - 1);
+        if (group.itemCount == 0) {
+            groups.remove(key);
+        }
+    }
+
+    /**
+     * Accounts for a change of an item's quantity made in place
+     * @param item The item, already added
+     * @param delta The change that was applied to its quantity
+     */
+    public void addQuantity(InventoryItem item, int delta) {
+        Group group = groups.get(normalize(keyExtractor.apply(item)));
+        if (group != null) {
+            group.units.add(delta);
+            addValue(group, delta, item.getPrice());
+        }
+    }
+
+    /**
+     * Returns the totals of one attribute value
+     * @param key The attribute value, matched case-insensitively
+     * @return The totals, or null if no item has the value
+     */
+    public Summary get(String key) {
+        Group group = groups.get(normalize(key));
+        return group == null ? null : summarize(group);
+    }
+
+    /**
+     * Returns the totals of every attribute value
+     * @return The totals, ordered by attribute value
+     */
+    public CustomArrayList<Summary> getAll() {
+        TreeMap<String, Group> sorted = new TreeMap<>(groups);
+        CustomArrayList<Summary> result = new CustomArrayList<>(sorted.size());
+        for (Map.Entry<String, Group> entry : sorted.entrySet()) {
+            result.add(summarize(entry.getValue()));
+        }
+        return result;
+    }
+
+    private static Summary summarize(Group group) {
+        return new Summary(group.displayKey, group.itemCount, group.units.sum(),
+                group.scaledValue.sum() / VALUE_SCALE + group.overflowValue.sum(),
+                group.prices.firstKey(), group.prices.lastKey());
+    }
+
+    /**
+     * Adds quantity x price to a group's stock value, exactly in
+     * ten-thousandths unless the product overflows a long
+     */
+    private static void addValue(Group group, long quantity, double price) {
+        double scaledPrice = price * VALUE_SCALE;
+        if (!(Math.abs(scaledPrice) >= Long.MAX_VALUE)) {
+            try {
+                group.scaledValue.add(Math.multiplyExact(quantity, Math.round(scaledPrice)));
+                return;
+            } catch (ArithmeticException e) {
+                // Too large for the exact sum
+            }
+        }
+        group.overflowValue.add(quantity * price);
+    }
+
+    private static String normalize(String key) {
+        return key == null ? "" : key.trim().toLowerCase(Locale.ROOT);
+    }
+}
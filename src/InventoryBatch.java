@@ -0,0 +1,125 @@
+package src;
+
+import src.datastructures.CustomArrayList;
+
+/**
+ * A set of create, update and delete operations that InventoryManager
+ * applies atomically: either every operation takes effect and is persisted
+ * with a single durable write, or none does.
+ */
+public class InventoryBatch {
+
+    /**
+     * The kinds of operation a batch can hold
+     */
+    public enum OperationType {
+        CREATE, UPDATE, DELETE, ADJUST
+    }
+
+    /**
+     * One operation of a batch
+     */
+    public static class Operation {
+        private final OperationType type;
+        private final int itemId;
+        private final InventoryItem item;
+        private final int delta;
+        private int resultQuantity = -1;
+
+        Operation(OperationType type, int itemId, InventoryItem item, int delta) {
+            this.type = type;
+            this.itemId = itemId;
+            this.item = item;
+            this.delta = delta;
+        }
+
+        public OperationType getType() {
+            return type;
+        }
+
+        public int getItemId() {
+            return itemId;
+        }
+
+        public InventoryItem getItem() {
+            return item;
+        }
+
+        public int getDelta() {
+            return delta;
+        }
+
+        /**
+         * Returns the quantity an adjustment left, once the batch is applied
+         * @return The quantity, or -1 if not applied
+         */
+        public int getResultQuantity() {
+            return resultQuantity;
+        }
+
+        void setResultQuantity(int resultQuantity) {
+            this.resultQuantity = resultQuantity;
+        }
+    }
+
+    private final CustomArrayList<Operation> operations = new CustomArrayList<>();
+
+    /**
+     * Adds the creation of an item
+     * @param item The item to create; an ID of 0 or less means one is allocated when the batch is applied
+     * @return This batch
+     */
+    public InventoryBatch create(InventoryItem item) {
+        operations.add(new Operation(OperationType.CREATE, item.getItemId(), item, 0));
+        return this;
+    }
+
+    /**
+     * Adds the replacement of an existing item
+     * @param id The ID of the item to update
+     * @param updatedItem The updated item data
+     * @return This batch
+     */
+    public InventoryBatch update(int id, InventoryItem updatedItem) {
+        operations.add(new Operation(OperationType.UPDATE, id, updatedItem, 0));
+        return this;
+    }
+
+    /**
+     * Adds the deletion of an existing item
+     * @param id The ID of the item to delete
+     * @return This batch
+     */
+    public InventoryBatch delete(int id) {
+        operations.add(new Operation(OperationType.DELETE, id, null, 0));
+        return this;
+    }
+
+    /**
+     * Adds a change of an existing item's quantity; the batch is rejected
+     * if it would make the quantity negative
+     * @param id The ID of the item
+     * @param delta The amount to add, negative to take stock out
+     * @return This batch
+     */
+    public InventoryBatch adjust(int id, int delta) {
+        operations.add(new Operation(OperationType.ADJUST, id, null, delta));
+        return this;
+    }
+
+    /**
+     * Returns the operations in the order they were added
+     * @return The operations
+     */
+    public CustomArrayList<Operation> getOperations() {
+        return operations;
+    }
+
+    public int size() {
+        return operations.size();
+    }
+
+    public boolean isEmpty() {
+        return operations.isEmpty();
+    }
+}
@@ -1,6 +1,7 @@
 package src;
 
 import java.io.Serializable;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
 
 /**
  * Represents an item in the inventory
@@ -8,12 +9,16 @@ import java.io.Serializable;
  */
 public class InventoryItem implements Serializable {
     private static final long serialVersionUID = 1L;
+
+    // Compare-and-set access to the quantity, without an extra object per item
+    private static final AtomicIntegerFieldUpdater<InventoryItem> QUANTITY =
+            AtomicIntegerFieldUpdater.newUpdater(InventoryItem.class, "quantity");
     
     // Attributes of the item
     private int itemId;
     private String name;
     private String category;
-    private int quantity;
+    private volatile int quantity;
     private double price;
     private String supplier;
 
@@ -68,6 +73,26 @@ public class InventoryItem implements Serializable {
         this.quantity = quantity;
     }
 
+    /**
+     * Atomically adds to the quantity, unless the result would be negative
+     * or overflow. Lock-free; concurrent callers retry until their
+     * compare-and-set succeeds.
+     * @param delta The amount to add, negative to take stock out
+     * @return The new quantity, or -1 if the change was refused
+     */
+    public int addQuantity(int delta) {
+        int current;
+        long updated;
+        do {
+            current = quantity;
+            updated = (long) current + delta;
+            if (updated < 0 || updated > Integer.MAX_VALUE) {
+                return -1;
+            }
+        } while (!QUANTITY.compareAndSet(this, current, (int) updated));
+        return (int) updated;
+    }
+
     public double getPrice() {
         return price;
     }
@@ -1,9 +1,25 @@
 package src;
 
 import src.datastructures.BinarySearchTree;
+import src.datastructures.BoundedHeap;
 import src.datastructures.SortingAlgorithms;
 import src.datastructures.CustomArrayList;
+import src.datastructures.IntHashMap;
+import java.io.BufferedWriter;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 /**
  * Manages inventory operations including CRUD operations
@@ -11,21 +27,160 @@ import java.util.Comparator;
  */
 public class InventoryManager {
 
+    // Number of log records after which the log is folded into a new snapshot
+    private static final int CHECKPOINT_INTERVAL = 10000;
+
+    // Number of delete tombstones after which compaction runs early
+    private static final int COMPACTION_TOMBSTONES = 1000;
+
+    // Rows between progress reports of a bulk import
+    private static final int IMPORT_PROGRESS_INTERVAL = 100000;
+
+    // Reorder threshold of items not given their own, unless -Dinventory.reorder.threshold is set
+    private static final int DEFAULT_REORDER_THRESHOLD = 10;
+
+    // Resident store, loaded once and kept in sync with the file
+    private final BinarySearchTree<InventoryItem> items;
+
+    // Primary point-lookup path by itemId; the tree provides the ID order
+    private final IntHashMap<InventoryItem> itemsById;
+
+    // Hands out new item IDs without scanning the store
+    private final IdAllocator idAllocator;
+
+    // Secondary indexes, maintained on every create, update and delete
+    private final AttributeIndex categoryIndex = new AttributeIndex(InventoryItem::getCategory);
+    private final AttributeIndex supplierIndex = new AttributeIndex(InventoryItem::getSupplier);
+    private final NameIndex nameIndex = new NameIndex();
+
+    // Items ordered by price, then itemId; stored items are never handed out, so prices never change in place
+    private final BinarySearchTree<InventoryItem> itemsByPrice = new BinarySearchTree<>(SortKey.PRICE.getComparator());
+
+    // Running totals, maintained with the secondary indexes
+    private final InventoryAggregates categoryTotals = new InventoryAggregates(InventoryItem::getCategory);
+    private final InventoryAggregates supplierTotals = new InventoryAggregates(InventoryItem::getSupplier);
+
+    // Items below their reorder threshold, kept current on every stock change
+    private final LowStockMonitor lowStock = new LowStockMonitor(
+            Integer.getInteger("inventory.reorder.threshold", DEFAULT_REORDER_THRESHOLD));
+
+    // Number of per-item locks; writers of items in different stripes never wait for each other
+    private static final int LOCK_STRIPES = 64;
+
+    // Guards the in-memory structures: readers share it, a mutation holds it only while applying
+    private final ReentrantReadWriteLock storeLock = new ReentrantReadWriteLock();
+
+    // Serializes logging and applying the mutations of the items in one stripe, so the
+    // log order and the memory order of an item always agree. Removals of stock commute,
+    // so they share a stripe and only exclude additions and whole-record writes. Operations
+    // that touch many items, and compaction capturing the store, hold every stripe.
+    private final ReentrantReadWriteLock[] stripes = new ReentrantReadWriteLock[LOCK_STRIPES];
+
+    // Background compaction folds the log into a snapshot off the caller's thread
+    private final ExecutorService compactor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "inventory-compactor");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AtomicBoolean compactionPending = new AtomicBoolean();
+
+    /**
+     * Constructor loads the inventory from file into memory
+     */
+    public InventoryManager() {
+        for (int i = 0; i < stripes.length; i++) {
+            stripes[i] = new ReentrantReadWriteLock();
+        }
+
+        items = FileManager.readAllItems();
+        System.out.printf("Loaded %d items (%.0f rows/s)%n",
+                FileManager.getLastLoadRows(), FileManager.getLastLoadRowsPerSecond());
+        if (FileManager.getLogRecordCount() > 0) {
+            // Start from a clean snapshot instead of replaying the same records next time
+            FileManager.checkpoint(items);
+        }
+
+        itemsById = new IntHashMap<>(items.size());
+        items.inOrderTraversal(item -> {
+            itemsById.put(item.getItemId(), item);
+            indexItem(item);
+        });
+
+        InventoryItem highestItem = items.last();
+        idAllocator = new IdAllocator(highestItem == null ? 0 : highestItem.getItemId());
+
+        String statsFile = System.getProperty("inventory.metrics.file");
+        if (statsFile != null) {
+            Metrics.startPeriodicDump(statsFile, Long.getLong("inventory.metrics.interval", 60), this::getStatistics);
+        }
+    }
+
     /**
      * Creates a new inventory item and saves it to file
+     * An item with the same ID is replaced; see createItemIfAbsent.
      * @param item The item to create
+     * @return true if the item was persisted
+     * @throws IllegalStateException If the item ID high-water mark could not be persisted
      */
-    public void createItem(InventoryItem item) {
-        FileManager.writeItemToFile(item);
+    public boolean createItem(InventoryItem item) {
+        long timer = Metrics.start();
+        // Items may arrive with caller-chosen IDs, which must never be handed out again
+        idAllocator.observe(item.getItemId());
+        ReentrantReadWriteLock.WriteLock stripe = stripeFor(item.getItemId()).writeLock();
+        stripe.lock();
+        try {
+            return saveItem(item);
+        } finally {
+            stripe.unlock();
+            Metrics.record(Metrics.Operation.CREATE, timer);
+        }
+    }
+
+    /**
+     * Creates an item unless one with its ID exists; the check and the
+     * create are atomic, so of concurrent callers with one ID only one succeeds
+     * @param item The item to create
+     * @return true if the item was created and persisted, false if the ID
+     *         was taken or the item could not be saved
+     * @throws IllegalStateException If the item ID high-water mark could not be persisted
+     */
+    public boolean createItemIfAbsent(InventoryItem item) {
+        long timer = Metrics.start();
+        idAllocator.observe(item.getItemId());
+        ReentrantReadWriteLock.WriteLock stripe = stripeFor(item.getItemId()).writeLock();
+        stripe.lock();
+        try {
+            return lookup(item.getItemId()) == null && saveItem(item);
+        } finally {
+            stripe.unlock();
+            Metrics.record(Metrics.Operation.CREATE, timer);
+        }
     }
 
     /**
      * Retrieves an item by its ID
      * @param id The ID of the item to retrieve
-     * @return The item if found, null otherwise
+     * @return A copy of the item if found, null otherwise; changing it does
+     *         not change the store until it is passed to updateItem
      */
     public InventoryItem readItem(int id) {
-        return FileManager.readItemById(id);
+        long timer = Metrics.start();
+        try {
+            InventoryItem item = lookup(id);
+            return item == null ? null : copyOf(item);
+        } finally {
+            Metrics.record(Metrics.Operation.READ, timer);
+        }
+    }
+
+    // Point lookup for the other operations, which are timed on their own
+    private InventoryItem lookup(int id) {
+        storeLock.readLock().lock();
+        try {
+            return itemsById.get(id);
+        } finally {
+            storeLock.readLock().unlock();
+        }
     }
 
     /**
@@ -35,80 +190,1072 @@ public class InventoryManager {
      * @return true if update was successful
      */
     public boolean updateItem(int id, InventoryItem updatedItem) {
-        InventoryItem existingItem = readItem(id);
-        if (existingItem != null) {
-            // Ensure the ID remains the same
-            updatedItem.setItemId(id);
-            FileManager.writeItemToFile(updatedItem);
-            return true;
+        long timer = Metrics.start();
+        ReentrantReadWriteLock.WriteLock stripe = stripeFor(id).writeLock();
+        stripe.lock();
+        try {
+            InventoryItem existingItem = lookup(id);
+            if (existingItem != null) {
+                // Ensure the ID remains the same
+                updatedItem.setItemId(id);
+                return saveItem(updatedItem);
+            }
+            return false;
+        } finally {
+            stripe.unlock();
+            Metrics.record(Metrics.Operation.UPDATE, timer);
         }
-        return false;
     }
 
-    // Update deleteItem method to use the new FileManager.deleteItemFromFile
+    /**
+     * Deletes an item. In write-ahead log mode only a tombstone record is
+     * written; the IDs of the other items never change.
+     * @param id The ID of the item to delete
+     * @return true if the item existed and was deleted
+     */
     public boolean deleteItem(int id) {
-        InventoryItem item = readItem(id);
-        if (item != null) {
-            return FileManager.deleteItemFromFile(id);
+        long timer = Metrics.start();
+        ReentrantReadWriteLock.WriteLock stripe = stripeFor(id).writeLock();
+        stripe.lock();
+        try {
+            InventoryItem item = lookup(id);
+            if (item == null) {
+                return false;
+            }
+
+            if (FileManager.isWriteAheadLogEnabled()) {
+                if (!FileManager.appendDeleteRecord(id)) {
+                    return false;
+                }
+                discardItem(item);
+                scheduleCompactionIfNeeded();
+                return true;
+            }
+
+            discardItem(item);
+            return saveSnapshot();
+        } finally {
+            stripe.unlock();
+            Metrics.record(Metrics.Operation.DELETE, timer);
         }
-        return false;
     }
 
-    // Update viewAllItems method to ensure sorting by category
-    public void viewAllItems() {
-        BinarySearchTree<InventoryItem> items = FileManager.readAllItems();
+    /**
+     * Adds to or takes from an item's quantity without rewriting the record
+     * Taking stock out is a compare-and-set on the item, so concurrent
+     * removals from the same item never block each other. Adding stock holds
+     * the item's stripe exclusively, so it is checked and logged before it
+     * becomes visible. Only a quantity change is logged, and the quantity
+     * never goes below zero.
+     * @param id The ID of the item
+     * @param delta The amount to add, negative to take stock out
+     * @return The new quantity, or -1 if the item does not exist, the change
+     *         would make the quantity negative, or it could not be persisted
+     */
+    public int adjustQuantity(int id, int delta) {
+        long timer = Metrics.start();
+        Lock stripe = delta > 0 ? stripeFor(id).writeLock() : stripeFor(id).readLock();
+        stripe.lock();
+        try {
+            InventoryItem item = lookup(id);
+            if (item == null) {
+                return -1;
+            }
 
-        if (items.isEmpty()) {
-            System.out.println("No items in inventory.");
-            return;
+            if (!FileManager.isWriteAheadLogEnabled()) {
+                int quantity = item.addQuantity(delta);
+                if (quantity < 0) {
+                    return -1;
+                }
+                updateTotals(item, delta);
+                lowStock.refresh(id, item);
+                return saveSnapshot() ? quantity : -1;
+            }
+
+            int quantity;
+            if (delta > 0) {
+                // Nothing else changes the item while the stripe is held exclusively, so the
+                // addition is logged before any reservation can take the added units
+                if ((long) item.getQuantity() + delta > Integer.MAX_VALUE
+                        || !FileManager.appendQuantityRecord(id, delta)) {
+                    return -1;
+                }
+                quantity = item.addQuantity(delta);
+            } else {
+                // Removals are taken before they are logged, so one that fails to log can put
+                // its units back: no addition can run meanwhile, so that never overflows
+                quantity = item.addQuantity(delta);
+                if (quantity < 0) {
+                    return -1;
+                }
+                if (delta != 0 && !FileManager.appendQuantityRecord(id, delta)) {
+                    item.addQuantity(-delta);
+                    return -1;
+                }
+            }
+            updateTotals(item, delta);
+            lowStock.refresh(id, item);
+            scheduleCompactionIfNeeded();
+            return quantity;
+        } finally {
+            stripe.unlock();
+            Metrics.record(Metrics.Operation.ADJUST, timer);
+        }
+    }
+
+    /**
+     * Takes stock out of an item only if enough is available
+     * @param id The ID of the item
+     * @param count The number of units to reserve, at least 1
+     * @return true if the units were reserved
+     */
+    public boolean reserve(int id, int count) {
+        if (count < 1) {
+            throw new IllegalArgumentException("Illegal reservation count: " + count);
+        }
+        return adjustQuantity(id, -count) >= 0;
+    }
+
+    /**
+     * Applies a batch of operations atomically
+     * The batch is first checked against the store: an update, delete or
+     * adjustment of an item that does not exist at that point of the batch,
+     * an adjustment below zero, or running out of item IDs rejects the whole batch. The net changes are then persisted with one write and one
+     * fsync, and applied in memory only if that write succeeded.
+     * @param batch The operations, applied in order
+     * @return true if every operation was applied and persisted, false if none was
+     */
+    public boolean applyBatch(InventoryBatch batch) {
+        long timer = Metrics.start();
+        lockAllStripes();
+        try {
+            // Final state of every item the batch touches, in first-touch order; null means deleted
+            LinkedHashMap<Integer, InventoryItem> changes = new LinkedHashMap<>();
+            CustomArrayList<InventoryBatch.Operation> operations = batch.getOperations();
+            for (int i = 0; i < operations.size(); i++) {
+                InventoryBatch.Operation operation = operations.get(i);
+                int id = operation.getItemId();
+                switch (operation.getType()) {
+                    case CREATE:
+                        try {
+                            if (id <= 0) {
+                                id = idAllocator.nextId();
+                                operation.getItem().setItemId(id);
+                            } else {
+                                idAllocator.observe(id);
+                            }
+                        } catch (IllegalStateException e) {
+                            System.out.println("Error allocating item ID: " + e.getMessage());
+                            return false;
+                        }
+                        changes.put(id, copyOf(operation.getItem()));
+                        break;
+                    case UPDATE:
+                        if (batchState(changes, id) == null) {
+                            return false;
+                        }
+                        operation.getItem().setItemId(id);
+                        changes.put(id, copyOf(operation.getItem()));
+                        break;
+                    case DELETE:
+                        if (batchState(changes, id) == null) {
+                            return false;
+                        }
+                        changes.put(id, null);
+                        break;
+                    case ADJUST:
+                        InventoryItem current = batchState(changes, id);
+                        if (current == null) {
+                            return false;
+                        }
+                        long quantity = (long) current.getQuantity() + operation.getDelta();
+                        if (quantity < 0 || quantity > Integer.MAX_VALUE) {
+                            return false;
+                        }
+                        // Adjusted on a copy, the stored item must not change before the batch is durable
+                        changes.put(id, new InventoryItem(id, current.getName(), current.getCategory(),
+                                (int) quantity, current.getPrice(), current.getSupplier()));
+                        operation.setResultQuantity((int) quantity);
+                        break;
+                }
+            }
+
+            if (FileManager.isWriteAheadLogEnabled()) {
+                CustomArrayList<InventoryItem> upserts = new CustomArrayList<>();
+                CustomArrayList<Integer> deletedIds = new CustomArrayList<>();
+                for (Map.Entry<Integer, InventoryItem> change : changes.entrySet()) {
+                    if (change.getValue() != null) {
+                        upserts.add(change.getValue());
+                    } else if (itemsById.containsKey(change.getKey())) {
+                        deletedIds.add(change.getKey());
+                    }
+                }
+                if (!FileManager.appendBatch(upserts, deletedIds)) {
+                    return false;
+                }
+                applyChanges(changes);
+                scheduleCompactionIfNeeded();
+                return true;
+            }
+
+            // Without a log the snapshot is the only durable copy; roll back if it cannot be written
+            LinkedHashMap<Integer, InventoryItem> previous = new LinkedHashMap<>();
+            for (Integer id : changes.keySet()) {
+                previous.put(id, itemsById.get(id));
+            }
+            applyChanges(changes);
+            if (!saveSnapshot()) {
+                applyChanges(previous);
+                return false;
+            }
+            return true;
+        } finally {
+            unlockAllStripes();
+            Metrics.record(Metrics.Operation.BATCH, timer);
+        }
+    }
+
+    // Returns an item as the batch has left it so far
+    private InventoryItem batchState(LinkedHashMap<Integer, InventoryItem> changes, int id) {
+        return changes.containsKey(id) ? changes.get(id) : itemsById.get(id);
+    }
+
+    /**
+     * Sets each item to its given state, storing it or, for null, removing it
+     */
+    private void applyChanges(LinkedHashMap<Integer, InventoryItem> changes) {
+        storeLock.writeLock().lock();
+        try {
+            for (Map.Entry<Integer, InventoryItem> change : changes.entrySet()) {
+                if (change.getValue() != null) {
+                    storeItem(change.getValue());
+                } else {
+                    InventoryItem existing = itemsById.get(change.getKey());
+                    if (existing != null) {
+                        discardItem(existing);
+                    }
+                }
+            }
+        } finally {
+            storeLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Stores an item in memory and persists it, logging it first when the
+     * write-ahead log is enabled. The caller holds the item's stripe; the
+     * log write itself happens outside the store lock, so readers never
+     * wait for a disk flush.
+     */
+    private boolean saveItem(InventoryItem update) {
+        // The caller keeps its object, so the store holds a copy that only it changes
+        InventoryItem item = copyOf(update);
+        if (FileManager.isWriteAheadLogEnabled()) {
+            if (!FileManager.appendUpsertRecord(item)) {
+                return false;
+            }
+            storeItem(item);
+            scheduleCompactionIfNeeded();
+            return true;
+        }
+
+        storeItem(item);
+        return saveSnapshot();
+    }
+
+    /**
+     * Rewrites the whole data file from the store, for when the log is disabled.
+     * Every writer saves after applying its own change, so the last save
+     * includes all completed changes.
+     */
+    private boolean saveSnapshot() {
+        storeLock.readLock().lock();
+        try {
+            return FileManager.saveAllItems(items);
+        } finally {
+            storeLock.readLock().unlock();
+        }
+    }
+
+    private ReentrantReadWriteLock stripeFor(int id) {
+        return stripes[Math.floorMod(id, LOCK_STRIPES)];
+    }
+
+    // Stripes are always taken in index order, so two callers cannot deadlock
+    private void lockAllStripes() {
+        for (int i = 0; i < stripes.length; i++) {
+            stripes[i].writeLock().lock();
+        }
+    }
+
+    private void unlockAllStripes() {
+        for (int i = stripes.length - 1; i >= 0; i--) {
+            stripes[i].writeLock().unlock();
+        }
+    }
+
+    /**
+     * Adds or replaces an item in the store and keeps the indexes in sync
+     */
+    private void storeItem(InventoryItem item) {
+        storeLock.writeLock().lock();
+        try {
+            InventoryItem previous = itemsById.put(item.getItemId(), item);
+            if (previous != null) {
+                unindexItem(previous);
+            }
+            items.add(item);
+            indexItem(item);
+        } finally {
+            storeLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Removes an item from the store and from the indexes
+     */
+    private void discardItem(InventoryItem item) {
+        storeLock.writeLock().lock();
+        try {
+            itemsById.remove(item.getItemId());
+            items.remove(item);
+            unindexItem(item);
+            lowStock.remove(item.getItemId());
+        } finally {
+            storeLock.writeLock().unlock();
+        }
+    }
+
+    private void indexItem(InventoryItem item) {
+        categoryIndex.add(item);
+        supplierIndex.add(item);
+        nameIndex.add(item);
+        itemsByPrice.add(item);
+        categoryTotals.add(item);
+        supplierTotals.add(item);
+        lowStock.refresh(item.getItemId(), item);
+    }
+
+    private void unindexItem(InventoryItem item) {
+        categoryIndex.remove(item);
+        supplierIndex.remove(item);
+        nameIndex.remove(item);
+        itemsByPrice.remove(item);
+        categoryTotals.remove(item);
+        supplierTotals.remove(item);
+    }
+
+    /**
+     * Accounts for a quantity change made in place. The caller holds the
+     * item's stripe; the read lock keeps the groups from changing meanwhile.
+     */
+    private void updateTotals(InventoryItem item, int delta) {
+        storeLock.readLock().lock();
+        try {
+            categoryTotals.addQuantity(item, delta);
+            supplierTotals.addQuantity(item, delta);
+        } finally {
+            storeLock.readLock().unlock();
+        }
+    }
+
+    private void scheduleCompactionIfNeeded() {
+        if (FileManager.getLogRecordCount() >= CHECKPOINT_INTERVAL
+                || FileManager.getTombstoneCount() >= COMPACTION_TOMBSTONES) {
+            if (compactionPending.compareAndSet(false, true)) {
+                compactor.execute(this::compact);
+            }
+        }
+    }
+
+    /**
+     * Waits for a background compaction in progress and stops compacting,
+     * so the files are no longer changed behind a manager loaded afterwards
+     * The manager must not be changed after it is closed.
+     */
+    public void close() {
+        compactor.shutdown();
+        try {
+            compactor.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Rewrites the snapshot without deleted items and drops the log segments
+     * it covers. Only capturing the store blocks writers, and it never
+     * blocks readers; the file is written in the background.
+     */
+    private void compact() {
+        long timer = Metrics.start();
+        try {
+            CustomArrayList<InventoryItem> liveItems;
+            long coveredSegment;
+            // With every stripe held no mutation is between its log write and its store update
+            lockAllStripes();
+            try {
+                // Copies, since adjustments change quantities in place once the stripes are released
+                liveItems = new CustomArrayList<>(items.size());
+                items.inOrderTraversal(item -> liveItems.add(copyOf(item)));
+                coveredSegment = FileManager.rotateLogSegment();
+            } finally {
+                unlockAllStripes();
+            }
+
+            FileManager.writeCheckpoint(consumer -> {
+                for (int i = 0; i < liveItems.size(); i++) {
+                    consumer.accept(liveItems.get(i));
+                }
+            }, coveredSegment);
+        } finally {
+            compactionPending.set(false);
+            Metrics.record(Metrics.Operation.COMPACT, timer);
+        }
+    }
+
+    /**
+     * Imports every item of a CSV file in one pass
+     * Rows are streamed, given a contiguous block of new IDs and merged with
+     * the store; the ID tree is rebuilt from the sorted result in linear time
+     * and the data file is written once, instead of once per item. Rows may
+     * be "name,category,quantity,price,supplier" or the data file layout
+     * with a leading itemId column, whose value is ignored. A header row and
+     * malformed rows are skipped.
+     * @param filePath The CSV file to import
+     * @return The number of imported items, or -1 if the import failed and nothing changed
+     */
+    public int importItems(String filePath) {
+        long timer = Metrics.start();
+        try {
+            return importFile(filePath);
+        } finally {
+            Metrics.record(Metrics.Operation.IMPORT, timer);
+        }
+    }
+
+    private int importFile(String filePath) {
+        long startTime = System.nanoTime();
+        CustomArrayList<InventoryItem> imported = new CustomArrayList<>();
+        int skipped = 0;
+
+        try (CSVReader reader = CSVReader.open(filePath)) {
+            long rows = 0;
+            while (reader.nextRecord()) {
+                rows++;
+                InventoryItem item = parseImportRow(reader);
+                if (item != null) {
+                    imported.add(item);
+                } else if (rows > 1) {
+                    skipped++; // The first row may be a header
+                }
+
+                if (rows % IMPORT_PROGRESS_INTERVAL == 0) {
+                    System.out.printf("  %d rows read (%.0f rows/s)%n", rows, ratePerSecond(rows, startTime));
+                }
+            }
+        } catch (IOException e) {
+            System.out.println("Error reading import file: " + e.getMessage());
+            return -1;
+        }
+
+        if (imported.isEmpty()) {
+            System.out.println("No items to import.");
+            return 0;
+        }
+
+        // Nothing is staged before the IDs are reserved, so failing here leaves the store unchanged
+        int firstId;
+        try {
+            firstId = idAllocator.reserveBlock(imported.size());
+        } catch (IllegalStateException e) {
+            System.out.println("Import aborted, no item IDs could be reserved: " + e.getMessage());
+            return -1;
+        }
+        for (int i = 0; i < imported.size(); i++) {
+            imported.get(i).setItemId(firstId + i);
+        }
+
+        // Writers wait for the single snapshot write, so the file and the store never disagree;
+        // readers only wait while the tree is rebuilt
+        lockAllStripes();
+        try {
+            CustomArrayList<InventoryItem> merged = mergeById(imported);
+            long coveredSegment = FileManager.rotateLogSegment();
+            boolean written = FileManager.writeCheckpoint(consumer -> {
+                for (int i = 0; i < merged.size(); i++) {
+                    consumer.accept(merged.get(i));
+                }
+            }, coveredSegment);
+            if (!written) {
+                System.out.println("Import aborted, the data file could not be written.");
+                return -1;
+            }
+
+            storeLock.writeLock().lock();
+            try {
+                items.buildFromSorted(merged);
+                for (int i = 0; i < imported.size(); i++) {
+                    InventoryItem item = imported.get(i);
+                    itemsById.put(item.getItemId(), item);
+                    indexItem(item);
+                }
+            } finally {
+                storeLock.writeLock().unlock();
+            }
+        } finally {
+            unlockAllStripes();
+        }
+
+        System.out.printf("Imported %d items (%d rows skipped) in %.2f s (%.0f rows/s)%n",
+                imported.size(), skipped, (System.nanoTime() - startTime) / 1e9,
+                ratePerSecond(imported.size() + skipped, startTime));
+        return imported.size();
+    }
+
+    /**
+     * Parses one import row, or returns null if it is a header or malformed
+     */
+    private static InventoryItem parseImportRow(CSVReader reader) {
+        int offset;
+        if (reader.getFieldCount() == 5) {
+            offset = 0;
+        } else if (reader.getFieldCount() == 6) {
+            offset = 1;
+        } else {
+            return null;
+        }
+
+        try {
+            String name = reader.getString(offset);
+            int quantity = reader.getInt(offset + 2);
+            double price = reader.getDouble(offset + 3);
+            if (name.isEmpty() || quantity < 0 || price < 0) {
+                return null;
+            }
+            return new InventoryItem(0, name, reader.getString(offset + 1), quantity, price,
+                    reader.getString(offset + 4));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Merges the store with new items, both in ascending ID order, in linear time
+     * The new IDs usually all follow the existing ones, but items created
+     * with later IDs while the import was reading are interleaved correctly.
+     */
+    private CustomArrayList<InventoryItem> mergeById(CustomArrayList<InventoryItem> newItems) {
+        CustomArrayList<InventoryItem> merged = new CustomArrayList<>(items.size() + newItems.size());
+        final int[] next = {0};
+        items.inOrderTraversal(item -> {
+            while (next[0] < newItems.size() && newItems.get(next[0]).getItemId() < item.getItemId()) {
+                merged.add(newItems.get(next[0]++));
+            }
+            merged.add(item);
+        });
+        while (next[0] < newItems.size()) {
+            merged.add(newItems.get(next[0]++));
+        }
+        return merged;
+    }
+
+    private static double ratePerSecond(long rows, long startTime) {
+        long elapsed = System.nanoTime() - startTime;
+        return elapsed > 0 ? rows * 1e9 / elapsed : 0;
+    }
+
+    /**
+     * Formats the operation latencies and counters together with the size
+     * and depth of the ID tree and the group commit batching
+     * @return The report, one line per value
+     */
+    public String getStatistics() {
+        int size;
+        int height;
+        storeLock.readLock().lock();
+        try {
+            size = items.size();
+            height = items.height();
+        } finally {
+            storeLock.readLock().unlock();
+        }
+
+        StringBuilder report = new StringBuilder();
+        if (!Metrics.isEnabled()) {
+            report.append("Statistics are disabled; the values below were recorded while they were enabled\n");
+        }
+        report.append(Metrics.report());
+        report.append(String.format("%-26s %10d%n", "tree size", size));
+        report.append(String.format("%-26s %10d%n", "tree depth", height));
+        report.append(String.format("%-26s %10d%n", "log records pending", FileManager.getLogRecordCount()));
+        GroupCommitLog groupCommit = FileManager.getGroupCommitLog();
+        if (groupCommit.getCommitCount() > 0) {
+            report.append(String.format("%-26s %10d%n", "group commits", groupCommit.getCommitCount()));
+            report.append(String.format("%-26s %10.1f%n", "group commit mean batch", groupCommit.getAverageBatchSize()));
+            report.append(String.format("%-26s %10d%n", "group commit max batch", groupCommit.getLargestBatchSize()));
+            report.append(String.format("%-26s %10.1f%n", "group commit fsync us", groupCommit.getAverageCommitMicros()));
+            report.append(String.format("%-26s %10.1f%n", "group commit mean wait us", groupCommit.getAverageLatencyMicros()));
+            report.append(String.format("%-26s %10.1f%n", "group commit max wait us", groupCommit.getMaxLatencyMicros()));
+        }
+        return report.toString();
+    }
+
+    /**
+     * Allocates the ID for a new item
+     * @return An ID that has never been used, even by deleted items
+     * @throws IllegalStateException If the IDs are exhausted or the high-water mark could not be persisted
+     */
+    public int allocateItemId() {
+        return idAllocator.nextId();
+    }
+
+    /**
+     * Finds all items in a category
+     * @param category The category, matched case-insensitively
+     * @return The matching items ordered by ID
+     */
+    public CustomArrayList<InventoryItem> findByCategory(String category) {
+        long timer = Metrics.start();
+        storeLock.readLock().lock();
+        try {
+            return copies(categoryIndex.find(category));
+        } finally {
+            storeLock.readLock().unlock();
+            Metrics.record(Metrics.Operation.FIND_BY_CATEGORY, timer);
+        }
+    }
+
+    /**
+     * Finds all items from a supplier
+     * @param supplier The supplier, matched case-insensitively
+     * @return The matching items ordered by ID
+     */
+    public CustomArrayList<InventoryItem> findBySupplier(String supplier) {
+        long timer = Metrics.start();
+        storeLock.readLock().lock();
+        try {
+            return copies(supplierIndex.find(supplier));
+        } finally {
+            storeLock.readLock().unlock();
+            Metrics.record(Metrics.Operation.FIND_BY_SUPPLIER, timer);
+        }
+    }
+
+    /**
+     * Finds one page of the items in a category
+     * @param category The category, matched case-insensitively
+     * @param offset Number of matching items to skip
+     * @param limit Maximum number of items to return
+     * @return The page of matching items ordered by ID
+     */
+    public CustomArrayList<InventoryItem> findByCategory(String category, int offset, int limit) {
+        long timer = Metrics.start();
+        storeLock.readLock().lock();
+        try {
+            return copies(categoryIndex.find(category, offset, limit));
+        } finally {
+            storeLock.readLock().unlock();
+            Metrics.record(Metrics.Operation.FIND_BY_CATEGORY, timer);
+        }
+    }
+
+    /**
+     * Finds one page of the items from a supplier
+     * @param supplier The supplier, matched case-insensitively
+     * @param offset Number of matching items to skip
+     * @param limit Maximum number of items to return
+     * @return The page of matching items ordered by ID
+     */
+    public CustomArrayList<InventoryItem> findBySupplier(String supplier, int offset, int limit) {
+        long timer = Metrics.start();
+        storeLock.readLock().lock();
+        try {
+            return copies(supplierIndex.find(supplier, offset, limit));
+        } finally {
+            storeLock.readLock().unlock();
+            Metrics.record(Metrics.Operation.FIND_BY_SUPPLIER, timer);
+        }
+    }
+
+    /**
+     * Finds the items with IDs in a range, visiting only those items
+     * @param lowId The lowest ID, inclusive
+     * @param highId The highest ID, inclusive
+     * @param limit Maximum number of items to return; the scan stops once it is reached
+     * @return The matching items ordered by ID
+     */
+    public CustomArrayList<InventoryItem> findByIdRange(int lowId, int highId, int limit) {
+        CustomArrayList<InventoryItem> result = new CustomArrayList<>();
+        if (limit <= 0 || lowId > highId) {
+            return result;
+        }
+
+        long timer = Metrics.start();
+        storeLock.readLock().lock();
+        try {
+            items.visitRange(probe(lowId, 0), probe(highId, 0), item -> {
+                result.add(copyOf(item));
+                return result.size() < limit;
+            });
+            return result;
+        } finally {
+            storeLock.readLock().unlock();
+            Metrics.record(Metrics.Operation.FIND_BY_ID_RANGE, timer);
+        }
+    }
+
+    /**
+     * Finds the items with prices in a range, visiting only those items
+     * @param lowPrice The lowest price, inclusive
+     * @param highPrice The highest price, inclusive
+     * @param limit Maximum number of items to return; the scan stops once it is reached
+     * @return The matching items ordered by price, then ID
+     */
+    public CustomArrayList<InventoryItem> findByPriceRange(double lowPrice, double highPrice, int limit) {
+        CustomArrayList<InventoryItem> result = new CustomArrayList<>();
+        if (limit <= 0 || !(lowPrice <= highPrice)) {
+            return result;
         }
 
-        // Collect items into a CustomArrayList for sorting
-        CustomArrayList<InventoryItem> itemList = new CustomArrayList<>();
-        items.inOrderTraversal(itemList::add);
+        long timer = Metrics.start();
+        storeLock.readLock().lock();
+        try {
+            // Probes with the extreme IDs bracket every item at the boundary prices
+            itemsByPrice.visitRange(probe(Integer.MIN_VALUE, lowPrice), probe(Integer.MAX_VALUE, highPrice), item -> {
+                result.add(copyOf(item));
+                return result.size() < limit;
+            });
+            return result;
+        } finally {
+            storeLock.readLock().unlock();
+            Metrics.record(Metrics.Operation.FIND_BY_PRICE_RANGE, timer);
+        }
+    }
+
+    // A copy that later changes of the stored item do not affect
+    private static InventoryItem copyOf(InventoryItem item) {
+        return new InventoryItem(item.getItemId(), item.getName(), item.getCategory(),
+                item.getQuantity(), item.getPrice(), item.getSupplier());
+    }
+
+    // Replaces stored items in a query result by copies, so callers cannot change them behind the indexes
+    private static CustomArrayList<InventoryItem> copies(CustomArrayList<InventoryItem> result) {
+        for (int i = 0; i < result.size(); i++) {
+            result.set(i, copyOf(result.get(i)));
+        }
+        return result;
+    }
 
-        // Sort items by category and then by name using custom merge sort
-        SortingAlgorithms.mergeSort(itemList, new Comparator<InventoryItem>() {
-            @Override
-            public int compare(InventoryItem item1, InventoryItem item2) {
-                int categoryComparison = item1.getCategory().compareTo(item2.getCategory());
-                if (categoryComparison != 0) {
-                    return categoryComparison;
+    // A search key for the ID and price trees
+    private static InventoryItem probe(int id, double price) {
+        return new InventoryItem(id, "", "", 0, price, "");
+    }
+
+    /**
+     * Returns the items whose quantity is below their reorder threshold
+     * @param limit Maximum number of items to return
+     * @return The items, furthest below their threshold first
+     */
+    public CustomArrayList<InventoryItem> itemsBelowThreshold(int limit) {
+        CustomArrayList<InventoryItem> result = new CustomArrayList<>();
+        if (limit <= 0) {
+            return result;
+        }
+
+        storeLock.readLock().lock();
+        try {
+            CustomArrayList<Integer> ids = lowStock.lowItemIds(limit);
+            for (int i = 0; i < ids.size(); i++) {
+                InventoryItem item = itemsById.get(ids.get(i));
+                if (item != null) {
+                    result.add(copyOf(item));
                 }
-                return item1.getName().compareTo(item2.getName());
+            }
+            return result;
+        } finally {
+            storeLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the reorder threshold of an item
+     * @param id The item ID
+     * @return The threshold below which the item is reported
+     */
+    public int getReorderThreshold(int id) {
+        return lowStock.getThreshold(id);
+    }
+
+    /**
+     * Gives an item its own reorder threshold. Thresholds are kept in
+     * memory only; after a restart every item has the default again.
+     * @param id The item ID
+     * @param threshold The threshold, 0 to never report the item
+     * @return true if the item exists
+     */
+    public boolean setReorderThreshold(int id, int threshold) {
+        if (threshold < 0) {
+            throw new IllegalArgumentException("Illegal reorder threshold: " + threshold);
+        }
+        ReentrantReadWriteLock.WriteLock stripe = stripeFor(id).writeLock();
+        stripe.lock();
+        try {
+            InventoryItem item = lookup(id);
+            if (item == null) {
+                return false;
+            }
+            lowStock.setThreshold(item, threshold);
+            return true;
+        } finally {
+            stripe.unlock();
+        }
+    }
+
+    /**
+     * Registers a listener that hears whenever an item falls below its
+     * reorder threshold or is restocked to it
+     * @param listener The listener, see LowStockMonitor.Listener for its restrictions
+     */
+    public void addLowStockListener(LowStockMonitor.Listener listener) {
+        lowStock.addListener(listener);
+    }
+
+    /**
+     * Returns the running totals of one category
+     * @param category The category, matched case-insensitively
+     * @return The totals, or null if no item is in the category
+     */
+    public InventoryAggregates.Summary getCategoryTotals(String category) {
+        storeLock.readLock().lock();
+        try {
+            return categoryTotals.get(category);
+        } finally {
+            storeLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the running totals of every category
+     * @return The totals ordered by category
+     */
+    public CustomArrayList<InventoryAggregates.Summary> getCategoryTotals() {
+        storeLock.readLock().lock();
+        try {
+            return categoryTotals.getAll();
+        } finally {
+            storeLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the running totals of one supplier
+     * @param supplier The supplier, matched case-insensitively
+     * @return The totals, or null if no item is from the supplier
+     */
+    public InventoryAggregates.Summary getSupplierTotals(String supplier) {
+        storeLock.readLock().lock();
+        try {
+            return supplierTotals.get(supplier);
+        } finally {
+            storeLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the running totals of every supplier
+     * @return The totals ordered by supplier
+     */
+    public CustomArrayList<InventoryAggregates.Summary> getSupplierTotals() {
+        storeLock.readLock().lock();
+        try {
+            return supplierTotals.getAll();
+        } finally {
+            storeLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Searches items by name, ranking exact and prefix matches before
+     * substring and similar-name matches
+     * @param query The full or partial name
+     * @param offset Number of ranked results to skip
+     * @param limit Maximum number of results to return
+     * @return One page of matching items
+     */
+    public CustomArrayList<InventoryItem> searchByName(String query, int offset, int limit) {
+        long timer = Metrics.start();
+        storeLock.readLock().lock();
+        try {
+            return copies(nameIndex.search(query, offset, limit));
+        } finally {
+            storeLock.readLock().unlock();
+            Metrics.record(Metrics.Operation.SEARCH_BY_NAME, timer);
+        }
+    }
+
+    /**
+     * Returns one page of items in the given order
+     * Orders other than ID select the page with a bounded heap of
+     * offset + limit items instead of sorting the whole inventory; for the
+     * ID order only the items up to the page end are visited.
+     * @param sortKey The order to list in
+     * @param offset Number of items to skip
+     * @param limit Maximum number of items to return
+     * @return The page, in order
+     */
+    public CustomArrayList<InventoryItem> listItems(SortKey sortKey, int offset, int limit) {
+        long timer = Metrics.start();
+        storeLock.readLock().lock();
+        try {
+            CustomArrayList<InventoryItem> page = new CustomArrayList<>();
+            if (limit <= 0) {
+                return page;
+            }
+            int skip = Math.max(offset, 0);
+
+            if (sortKey == SortKey.ID) {
+                final int[] position = {0};
+                items.visitInOrder(item -> {
+                    if (position[0]++ >= skip) {
+                        page.add(copyOf(item));
+                    }
+                    return page.size() < limit;
+                });
+                return page;
+            }
+
+            int capacity = (int) Math.min((long) skip + limit, items.size());
+            CustomArrayList<InventoryItem> top = selectSmallest(sortKey, null, capacity);
+            for (int i = skip; i < top.size(); i++) {
+                page.add(copyOf(top.get(i)));
+            }
+            return page;
+        } finally {
+            storeLock.readLock().unlock();
+            Metrics.record(Metrics.Operation.LIST, timer);
+        }
+    }
+
+    /**
+     * Returns the page of items that follows a cursor in the given order
+     * Memory and sorting work depend only on the page size.
+     * @param sortKey The order to list in
+     * @param cursor The last item of the previous page, or null for the first page
+     * @param limit Maximum number of items to return
+     * @return The page, in order
+     */
+    public CustomArrayList<InventoryItem> listItemsAfter(SortKey sortKey, InventoryItem cursor, int limit) {
+        if (cursor == null) {
+            return listItems(sortKey, 0, limit);
+        }
+
+        CustomArrayList<InventoryItem> page = new CustomArrayList<>();
+        if (limit <= 0) {
+            return page;
+        }
+
+        long timer = Metrics.start();
+        storeLock.readLock().lock();
+        try {
+            if (sortKey == SortKey.ID) {
+                items.visitFrom(cursor, false, item -> {
+                    page.add(copyOf(item));
+                    return page.size() < limit;
+                });
+                return page;
+            }
+            return copies(selectSmallest(sortKey, cursor, Math.min(limit, items.size())));
+        } finally {
+            storeLock.readLock().unlock();
+            Metrics.record(Metrics.Operation.LIST, timer);
+        }
+    }
+
+    /**
+     * Returns the items with the lowest stock
+     * @param count The number of items to return
+     * @return Up to count items, lowest quantity first
+     */
+    public CustomArrayList<InventoryItem> lowestStockItems(int count) {
+        return listItems(SortKey.QUANTITY, 0, count);
+    }
+
+    /**
+     * Selects the smallest items after an optional cursor in one pass; the caller holds the read lock
+     */
+    private CustomArrayList<InventoryItem> selectSmallest(SortKey sortKey, InventoryItem cursor, int count) {
+        Comparator<InventoryItem> comparator = sortKey.getComparator();
+        BoundedHeap<InventoryItem> heap = new BoundedHeap<>(count, comparator);
+        items.inOrderTraversal(item -> {
+            if (cursor == null || comparator.compare(item, cursor) > 0) {
+                heap.offer(item);
             }
         });
+        return heap.drainSorted();
+    }
 
-        // Display items in a formatted table
-        System.out.println("\n------------------------------ INVENTORY ITEMS ------------------------------");
-        System.out.printf("%-10s %-20s %-15s %-10s %-10s %-15s%n",
-                "ID", "NAME", "CATEGORY", "QUANTITY", "PRICE", "SUPPLIER");
-        System.out.println("--------------------------------------------------------------------------");
+    // Update viewAllItems method to ensure sorting by category
+    public void viewAllItems() {
+        CustomArrayList<InventoryItem> itemList = sortedForDisplay();
+        if (itemList.isEmpty()) {
+            System.out.println("No items in inventory.");
+            return;
+        }
 
-        for (int i = 0; i < itemList.size(); i++) {
-            InventoryItem item = itemList.get(i);
-            System.out.printf("%-10s %-20s %-15s %-10d $%-9.2f %-15s%n",
-                    item.getItemId(),
-                    truncateString(item.getName(), 20),
-                    truncateString(item.getCategory(), 15),
-                    item.getQuantity(),
-                    item.getPrice(),
-                    truncateString(item.getSupplier(), 15));
+        displayItems(itemList);
+    }
+
+    /**
+     * Collects every item sorted by category and then by name
+     */
+    private CustomArrayList<InventoryItem> sortedForDisplay() {
+        // Collect items into a CustomArrayList for sorting; the sort itself runs without the lock
+        long timer = Metrics.start();
+        CustomArrayList<InventoryItem> itemList;
+        storeLock.readLock().lock();
+        try {
+            itemList = new CustomArrayList<>(items.size());
+            items.inOrderTraversal(itemList::add);
+        } finally {
+            storeLock.readLock().unlock();
+        }
+
+        // Sort by dictionary-encoded category ordinals, comparing names only within a category.
+        // Reloads are mostly in category order already, which the adaptive sort exploits.
+        // It replaced parallelMergeSort here, which compares whole strings and cannot skip
+        // presorted runs; that sort stays available for large unordered lists.
+        int[] categoryKeys = SortingAlgorithms.encodeKeys(itemList, InventoryItem::getCategory);
+        SortingAlgorithms.adaptiveSort(itemList, categoryKeys, Comparator.comparing(InventoryItem::getName));
+        Metrics.record(Metrics.Operation.SORT_FOR_DISPLAY, timer);
+        return itemList;
+    }
+
+    /**
+     * Writes the full inventory table, sorted like viewAllItems, to a file
+     * @param filePath The file to create or overwrite
+     * @return true if the file was written
+     */
+    public boolean exportItems(String filePath) {
+        try (Writer writer = new BufferedWriter(new OutputStreamWriter(
+                new FileOutputStream(filePath), StandardCharsets.UTF_8))) {
+            new TableRenderer(writer).renderTable(sortedForDisplay());
+            return true;
+        } catch (IOException e) {
+            System.out.println("Error exporting items: " + e.getMessage());
+            return false;
         }
-        System.out.println("--------------------------------------------------------------------------");
-        System.out.println("Total Items: " + itemList.size());
     }
 
     /**
-     * Helper method to truncate strings for display formatting
-     * @param str The string to truncate
-     * @param maxLength The maximum length
-     * @return The truncated string
+     * Displays a list of items in a formatted table
+     * @param itemList The items to display, in display order
      */
-    private String truncateString(String str, int maxLength) {
-        if (str.length() <= maxLength) {
-            return str;
+    public void displayItems(CustomArrayList<InventoryItem> itemList) {
+        try {
+            TableRenderer.toConsole().renderTable(itemList);
+        } catch (IOException e) {
+            System.out.println("Error displaying items: " + e.getMessage());
         }
-        return str.substring(0, maxLength - 3) + "...";
     }
 }
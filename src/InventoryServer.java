@@ -0,0 +1,366 @@
+package src;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import src.datastructures.CustomArrayList;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.Method;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Embedded HTTP/JSON front end for an InventoryManager
+ * Built on the JDK's com.sun.net.httpserver, with every request handled
+ * on its own virtual thread where the runtime supports them.
+ *
+ * GET    /items?sort=&offset=&limit=            list a page of items
+ * GET    /items?name=|category=|supplier=        search
+ * GET    /items?minId=&maxId=|minPrice=&maxPrice= range scan, in ID or price order
+ * POST   /items                                  create an item from a JSON object
+ * GET    /items/{id}                             read an item
+ * PUT    /items/{id}                             replace an item
+ * DELETE /items/{id}                             delete an item
+ * POST   /items/{id}/adjust?delta=N              add to or take from the quantity
+ * POST   /items/{id}/reserve?count=N             take stock only if enough is available
+ */
+public class InventoryServer {
+
+    private static final int DEFAULT_PAGE_SIZE = 20;
+    private static final int MAX_PAGE_SIZE = 1000;
+
+    private final InventoryManager manager;
+    private final HttpServer server;
+    private final ExecutorService executor;
+
+    /**
+     * Constructor binds the server without starting it
+     * @param manager The inventory to serve
+     * @param port The port to listen on, 0 for any free port
+     * @throws IOException If the port cannot be bound
+     */
+    public InventoryServer(InventoryManager manager, int port) throws IOException {
+        this.manager = manager;
+        // Without TCP_NODELAY small responses on kept-alive connections stall on delayed ACKs
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+        this.server = HttpServer.create(new InetSocketAddress(port), 0);
+        this.executor = newRequestExecutor();
+        server.setExecutor(executor);
+        server.createContext("/items", this::handle);
+    }
+
+    /**
+     * Starts accepting requests
+     */
+    public void start() {
+        server.start();
+    }
+
+    /**
+     * Stops the server, giving in-flight requests up to a second to finish
+     */
+    public void stop() {
+        server.stop(1);
+        executor.shutdown();
+    }
+
+    /**
+     * Returns the port the server listens on
+     * @return The port
+     */
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Creates a virtual thread per request on Java 21 and later. Older
+     * runtimes fall back to a cached pool, which also runs each concurrent
+     * request on its own (platform) thread.
+     */
+    private static ExecutorService newRequestExecutor() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            AtomicInteger threadNumber = new AtomicInteger();
+            return Executors.newCachedThreadPool(runnable -> {
+                Thread thread = new Thread(runnable, "inventory-http-" + threadNumber.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            route(exchange);
+        } catch (IllegalArgumentException e) {
+            send(exchange, 400, Json.error(e.getMessage()));
+        } catch (RuntimeException e) {
+            System.out.println("Error handling request: " + e.getMessage());
+            e.printStackTrace();
+            send(exchange, 500, Json.error("Internal error"));
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void route(HttpExchange exchange) throws IOException {
+        String method = exchange.getRequestMethod();
+        String path = exchange.getRequestURI().getPath();
+        HashMap<String, String> query = parseQuery(exchange.getRequestURI().getRawQuery());
+
+        String rest = path.substring("/items".length());
+        if (!rest.isEmpty() && !rest.startsWith("/")) {
+            send(exchange, 404, Json.error("Not found"));
+            return;
+        }
+        // segments[0] is the empty string before the first slash, if any
+        String[] segments = rest.split("/");
+        if (segments.length <= 1) {
+            if (method.equals("GET")) {
+                listItems(exchange, query);
+            } else if (method.equals("POST")) {
+                createItem(exchange);
+            } else {
+                send(exchange, 405, Json.error("Method not allowed"));
+            }
+            return;
+        }
+
+        int id = parseInt(segments[1], "item ID");
+        if (segments.length == 2) {
+            switch (method) {
+                case "GET":
+                    readItem(exchange, id);
+                    break;
+                case "PUT":
+                    updateItem(exchange, id);
+                    break;
+                case "DELETE":
+                    if (manager.deleteItem(id)) {
+                        send(exchange, 204, null);
+                    } else {
+                        send(exchange, 404, Json.error("Item not found"));
+                    }
+                    break;
+                default:
+                    send(exchange, 405, Json.error("Method not allowed"));
+            }
+        } else if (segments.length == 3 && method.equals("POST")
+                && (segments[2].equals("adjust") || segments[2].equals("reserve"))) {
+            changeQuantity(exchange, id, segments[2].equals("reserve"), query);
+        } else {
+            send(exchange, 404, Json.error("Not found"));
+        }
+    }
+
+    private void listItems(HttpExchange exchange, HashMap<String, String> query) throws IOException {
+        int offset = query.containsKey("offset") ? parseInt(query.get("offset"), "offset") : 0;
+        int limit = query.containsKey("limit") ? parseInt(query.get("limit"), "limit") : DEFAULT_PAGE_SIZE;
+        if (offset < 0 || limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("offset must be at least 0 and limit between 1 and " + MAX_PAGE_SIZE);
+        }
+
+        CustomArrayList<InventoryItem> result;
+        if (query.containsKey("name")) {
+            result = manager.searchByName(query.get("name"), offset, limit);
+        } else if (query.containsKey("category")) {
+            result = manager.findByCategory(query.get("category"), offset, limit);
+        } else if (query.containsKey("supplier")) {
+            result = manager.findBySupplier(query.get("supplier"), offset, limit);
+        } else if (query.containsKey("minId") || query.containsKey("maxId")) {
+            int lowId = query.containsKey("minId") ? parseInt(query.get("minId"), "minId") : Integer.MIN_VALUE;
+            int highId = query.containsKey("maxId") ? parseInt(query.get("maxId"), "maxId") : Integer.MAX_VALUE;
+            result = page(manager.findByIdRange(lowId, highId, pageEnd(offset, limit)), offset, limit);
+        } else if (query.containsKey("minPrice") || query.containsKey("maxPrice")) {
+            double lowPrice = query.containsKey("minPrice") ? parseDouble(query.get("minPrice"), "minPrice") : 0;
+            double highPrice = query.containsKey("maxPrice")
+                    ? parseDouble(query.get("maxPrice"), "maxPrice") : Double.MAX_VALUE;
+            result = page(manager.findByPriceRange(lowPrice, highPrice, pageEnd(offset, limit)), offset, limit);
+        } else {
+            SortKey sortKey = SortKey.ID;
+            if (query.containsKey("sort")) {
+                try {
+                    sortKey = SortKey.valueOf(query.get("sort").toUpperCase(Locale.ROOT));
+                } catch (IllegalArgumentException e) {
+                    throw new IllegalArgumentException("Unknown sort key: " + query.get("sort"));
+                }
+            }
+            result = manager.listItems(sortKey, offset, limit);
+        }
+        send(exchange, 200, Json.toJson(result));
+    }
+
+    private static int pageEnd(int offset, int limit) {
+        return (int) Math.min((long) offset + limit, Integer.MAX_VALUE);
+    }
+
+    private static CustomArrayList<InventoryItem> page(CustomArrayList<InventoryItem> items, int offset, int limit) {
+        CustomArrayList<InventoryItem> page = new CustomArrayList<>();
+        for (int i = offset; i < items.size() && page.size() < limit; i++) {
+            page.add(items.get(i));
+        }
+        return page;
+    }
+
+    private void readItem(HttpExchange exchange, int id) throws IOException {
+        InventoryItem item = manager.readItem(id);
+        if (item == null) {
+            send(exchange, 404, Json.error("Item not found"));
+        } else {
+            send(exchange, 200, Json.toJson(item));
+        }
+    }
+
+    private void createItem(HttpExchange exchange) throws IOException {
+        HashMap<String, String> fields = Json.parseObject(readBody(exchange));
+        int id = fields.get("itemId") != null ? parseInt(fields.get("itemId"), "itemId") : manager.allocateItemId();
+        if (id < 1) {
+            throw new IllegalArgumentException("itemId must be positive");
+        }
+
+        InventoryItem item = toItem(id, fields);
+        if (manager.createItemIfAbsent(item)) {
+            send(exchange, 201, Json.toJson(item));
+        } else if (manager.readItem(id) != null) {
+            send(exchange, 409, Json.error("Item " + id + " already exists"));
+        } else {
+            send(exchange, 500, Json.error("Item could not be saved"));
+        }
+    }
+
+    private void updateItem(HttpExchange exchange, int id) throws IOException {
+        InventoryItem item = toItem(id, Json.parseObject(readBody(exchange)));
+        if (manager.updateItem(id, item)) {
+            send(exchange, 200, Json.toJson(item));
+        } else if (manager.readItem(id) == null) {
+            send(exchange, 404, Json.error("Item not found"));
+        } else {
+            send(exchange, 500, Json.error("Item could not be saved"));
+        }
+    }
+
+    private void changeQuantity(HttpExchange exchange, int id, boolean reserve,
+                                HashMap<String, String> query) throws IOException {
+        String parameter = reserve ? "count" : "delta";
+        String value = query.get(parameter);
+        if (value == null) {
+            String body = readBody(exchange);
+            value = body.isBlank() ? null : Json.parseObject(body).get(parameter);
+        }
+        if (value == null) {
+            throw new IllegalArgumentException("Missing " + parameter);
+        }
+        int amount = parseInt(value, parameter);
+        if (reserve && amount < 1) {
+            throw new IllegalArgumentException("count must be at least 1");
+        }
+
+        if (manager.readItem(id) == null) {
+            send(exchange, 404, Json.error("Item not found"));
+            return;
+        }
+        int quantity = manager.adjustQuantity(id, reserve ? -amount : amount);
+        if (quantity < 0) {
+            send(exchange, 409, Json.error("Insufficient stock or change rejected"));
+            return;
+        }
+        send(exchange, 200, "{\"itemId\":" + id + ",\"quantity\":" + quantity + "}");
+    }
+
+    /**
+     * Builds an item from request fields, validating them like the CLI does
+     */
+    private static InventoryItem toItem(int id, HashMap<String, String> fields) {
+        String name = requireText(fields, "name");
+        String category = requireText(fields, "category");
+        String supplier = requireText(fields, "supplier");
+        int quantity = parseInt(require(fields, "quantity"), "quantity");
+        double price;
+        try {
+            price = Double.parseDouble(require(fields, "price"));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("price must be a number");
+        }
+        if (quantity < 0 || price < 0 || Double.isNaN(price) || Double.isInfinite(price)) {
+            throw new IllegalArgumentException("quantity and price cannot be negative");
+        }
+        return new InventoryItem(id, name, category, quantity, price, supplier);
+    }
+
+    private static String require(HashMap<String, String> fields, String name) {
+        String value = fields.get(name);
+        if (value == null) {
+            throw new IllegalArgumentException("Missing " + name);
+        }
+        return value;
+    }
+
+    private static String requireText(HashMap<String, String> fields, String name) {
+        String value = require(fields, name).trim();
+        if (value.isEmpty()) {
+            throw new IllegalArgumentException(name + " cannot be empty");
+        }
+        return value;
+    }
+
+    private static int parseInt(String value, String name) {
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(name + " must be an integer");
+        }
+    }
+
+    private static double parseDouble(String value, String name) {
+        try {
+            return Double.parseDouble(value.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(name + " must be a number");
+        }
+    }
+
+    private static HashMap<String, String> parseQuery(String rawQuery) {
+        HashMap<String, String> parameters = new HashMap<>();
+        if (rawQuery == null || rawQuery.isEmpty()) {
+            return parameters;
+        }
+        for (String pair : rawQuery.split("&")) {
+            int separator = pair.indexOf('=');
+            String name = separator < 0 ? pair : pair.substring(0, separator);
+            String value = separator < 0 ? "" : pair.substring(separator + 1);
+            parameters.put(URLDecoder.decode(name, StandardCharsets.UTF_8),
+                    URLDecoder.decode(value, StandardCharsets.UTF_8));
+        }
+        return parameters;
+    }
+
+    private static String readBody(HttpExchange exchange) throws IOException {
+        try (InputStream in = exchange.getRequestBody()) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    private static void send(HttpExchange exchange, int status, String body) throws IOException {
+        if (body == null) {
+            exchange.sendResponseHeaders(status, -1);
+            return;
+        }
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+}
@@ -0,0 +1,236 @@
+package src;
+
+import src.datastructures.CustomArrayList;
+import java.util.HashMap;
+
+/**
+ * Minimal JSON support for the HTTP front end
+ * Writes items and item lists, and reads the flat objects the endpoints
+ * accept. Nested objects and arrays are not supported when reading.
+ */
+public class Json {
+
+    private Json() {
+    }
+
+    /**
+     * Writes an item as a JSON object
+     * @param item The item
+     * @return The JSON text
+     */
+    public static String toJson(InventoryItem item) {
+        StringBuilder json = new StringBuilder(128);
+        appendItem(json, item);
+        return json.toString();
+    }
+
+    /**
+     * Writes items as a JSON object holding an "items" array and a "count"
+     * @param items The items, in the order to write them
+     * @return The JSON text
+     */
+    public static String toJson(CustomArrayList<InventoryItem> items) {
+        StringBuilder json = new StringBuilder(64 + items.size() * 128);
+        json.append("{\"items\":[");
+        for (int i = 0; i < items.size(); i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            appendItem(json, items.get(i));
+        }
+        json.append("],\"count\":").append(items.size()).append('}');
+        return json.toString();
+    }
+
+    /**
+     * Writes an error response body
+     * @param message The error message
+     * @return The JSON text
+     */
+    public static String error(String message) {
+        StringBuilder json = new StringBuilder();
+        json.append("{\"error\":");
+        appendString(json, message);
+        return json.append('}').toString();
+    }
+
+    private static void appendItem(StringBuilder json, InventoryItem item) {
+        json.append("{\"itemId\":").append(item.getItemId());
+        json.append(",\"name\":");
+        appendString(json, item.getName());
+        json.append(",\"category\":");
+        appendString(json, item.getCategory());
+        json.append(",\"quantity\":").append(item.getQuantity());
+        json.append(",\"price\":").append(item.getPrice());
+        json.append(",\"supplier\":");
+        appendString(json, item.getSupplier());
+        json.append('}');
+    }
+
+    /**
+     * Appends a string literal, escaping quotes, backslashes and control characters
+     */
+    public static void appendString(StringBuilder json, String value) {
+        if (value == null) {
+            json.append("null");
+            return;
+        }
+
+        json.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    json.append("\\\"");
+                    break;
+                case '\\':
+                    json.append("\\\\");
+                    break;
+                case '\n':
+                    json.append("\\n");
+                    break;
+                case '\r':
+                    json.append("\\r");
+                    break;
+                case '\t':
+                    json.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        json.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        json.append(c);
+                    }
+            }
+        }
+        json.append('"');
+    }
+
+    /**
+     * Parses a flat JSON object
+     * @param text The JSON text
+     * @return The members, with strings unescaped and other values as written; JSON null maps to null
+     * @throws IllegalArgumentException If the text is not a flat JSON object
+     */
+    public static HashMap<String, String> parseObject(String text) {
+        Parser parser = new Parser(text);
+        HashMap<String, String> members = new HashMap<>();
+        parser.expect('{');
+        if (!parser.consume('}')) {
+            do {
+                String name = parser.readString();
+                parser.expect(':');
+                members.put(name, parser.readValue());
+            } while (parser.consume(','));
+            parser.expect('}');
+        }
+        parser.expectEnd();
+        return members;
+    }
+
+    // Recursive-descent reader over the subset of JSON that parseObject accepts
+    private static class Parser {
+        private final String text;
+        private int position;
+
+        Parser(String text) {
+            this.text = text;
+        }
+
+        void expect(char c) {
+            if (!consume(c)) {
+                throw new IllegalArgumentException("Expected '" + c + "' at position " + position);
+            }
+        }
+
+        boolean consume(char c) {
+            skipWhitespace();
+            if (position < text.length() && text.charAt(position) == c) {
+                position++;
+                return true;
+            }
+            return false;
+        }
+
+        void expectEnd() {
+            skipWhitespace();
+            if (position != text.length()) {
+                throw new IllegalArgumentException("Unexpected content at position " + position);
+            }
+        }
+
+        String readValue() {
+            skipWhitespace();
+            if (position < text.length() && text.charAt(position) == '"') {
+                return readString();
+            }
+
+            int start = position;
+            while (position < text.length() && ",}] \t\r\n".indexOf(text.charAt(position)) < 0) {
+                position++;
+            }
+            String literal = text.substring(start, position);
+            if (literal.isEmpty() || literal.charAt(0) == '{' || literal.charAt(0) == '[') {
+                throw new IllegalArgumentException("Unsupported value at position " + start);
+            }
+            return literal.equals("null") ? null : literal;
+        }
+
+        String readString() {
+            skipWhitespace();
+            if (position >= text.length() || text.charAt(position) != '"') {
+                throw new IllegalArgumentException("Expected a string at position " + position);
+            }
+            position++;
+
+            StringBuilder value = new StringBuilder();
+            while (position < text.length()) {
+                char c = text.charAt(position++);
+                if (c == '"') {
+                    return value.toString();
+                }
+                if (c != '\\') {
+                    value.append(c);
+                    continue;
+                }
+                if (position >= text.length()) {
+                    break;
+                }
+                char escaped = text.charAt(position++);
+                switch (escaped) {
+                    case 'b':
+                        value.append('\b');
+                        break;
+                    case 'f':
+                        value.append('\f');
+                        break;
+                    case 'n':
+                        value.append('\n');
+                        break;
+                    case 'r':
+                        value.append('\r');
+                        break;
+                    case 't':
+                        value.append('\t');
+                        break;
+                    case 'u':
+                        if (position + 4 > text.length()) {
+                            throw new IllegalArgumentException("Truncated escape at position " + position);
+                        }
+                        value.append((char) Integer.parseInt(text.substring(position, position + 4), 16));
+                        position += 4;
+                        break;
+                    default:
+                        value.append(escaped);
+                }
+            }
+            throw new IllegalArgumentException("Unterminated string");
+        }
+
+        private void skipWhitespace() {
+            while (position < text.length() && Character.isWhitespace(text.charAt(position))) {
+                position++;
+            }
+        }
+    }
+}
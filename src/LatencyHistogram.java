@@ -0,0 +1,130 @@
+package src;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Fixed-size histogram of durations in nanoseconds
+ * Buckets are log-linear like HdrHistogram's: each power of two is split
+ * into 64 equal buckets, so any recorded value is reported within about
+ * 1.6% of its true value, using a few kilobytes however many values are
+ * recorded. Recording is lock-free and safe from any number of threads.
+ */
+public class LatencyHistogram {
+
+    // Values below 2^SUB_BUCKET_BITS get a bucket each
+    private static final int SUB_BUCKET_BITS = 7;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int HALF_SUB_BUCKETS = SUB_BUCKETS / 2;
+
+    // Longer durations, about 2.4 hours, are recorded as this value
+    private static final long MAX_TRACKABLE = (1L << 43) - 1;
+
+    private static final int BUCKETS = bucketIndex(MAX_TRACKABLE) + 1;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder totalCount = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+
+    /**
+     * Records one duration
+     * @param nanos The duration in nanoseconds; negative values count as 0
+     */
+    public void record(long nanos) {
+        long value = Math.min(Math.max(nanos, 0), MAX_TRACKABLE);
+        counts.incrementAndGet(bucketIndex(value));
+        totalCount.increment();
+        totalNanos.add(value);
+        maxNanos.accumulate(value);
+    }
+
+    /**
+     * Returns the bucket of a value: its top SUB_BUCKET_BITS significant bits
+     */
+    private static int bucketIndex(long value) {
+        int magnitude = 63 - Long.numberOfLeadingZeros(value | 1);
+        if (magnitude < SUB_BUCKET_BITS) {
+            return (int) value;
+        }
+        int shift = magnitude - SUB_BUCKET_BITS + 1;
+        return shift * HALF_SUB_BUCKETS + (int) (value >>> shift);
+    }
+
+    /**
+     * Returns the highest value that falls into a bucket
+     */
+    private static long bucketHighestValue(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        int shift = index / HALF_SUB_BUCKETS - 1;
+        long subBucket = index % HALF_SUB_BUCKETS + HALF_SUB_BUCKETS;
+        return ((subBucket + 1) << shift) - 1;
+    }
+
+    /**
+     * Returns the number of recorded values
+     * @return The count
+     */
+    public long getCount() {
+        return totalCount.sum();
+    }
+
+    /**
+     * Returns the mean of the recorded values
+     * @return The mean in nanoseconds, 0 if nothing was recorded
+     */
+    public double getMeanNanos() {
+        long count = totalCount.sum();
+        return count == 0 ? 0 : (double) totalNanos.sum() / count;
+    }
+
+    /**
+     * Returns the largest recorded value
+     * @return The maximum in nanoseconds
+     */
+    public long getMaxNanos() {
+        return maxNanos.get();
+    }
+
+    /**
+     * Returns the value below or at which the given percentage of recorded values fall
+     * @param percentile The percentile, between 0 and 100
+     * @return The value in nanoseconds, 0 if nothing was recorded
+     */
+    public long getPercentileNanos(double percentile) {
+        long count = 0;
+        long[] snapshot = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            snapshot[i] = counts.get(i);
+            count += snapshot[i];
+        }
+        if (count == 0) {
+            return 0;
+        }
+
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100.0 * count));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += snapshot[i];
+            if (seen >= rank) {
+                return Math.min(bucketHighestValue(i), getMaxNanos());
+            }
+        }
+        return getMaxNanos();
+    }
+
+    /**
+     * Clears every recorded value. Values recorded concurrently may be kept.
+     */
+    public void reset() {
+        for (int i = 0; i < BUCKETS; i++) {
+            counts.set(i, 0);
+        }
+        totalCount.reset();
+        totalNanos.reset();
+        maxNanos.reset();
+    }
+}
@@ -0,0 +1,198 @@
+package src;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Local load generator for InventoryServer
+ * Drives a mix of reads and stock adjustments from concurrent clients and
+ * reports throughput and latency percentiles. Without a URL it starts an
+ * embedded server over a fresh inventory in a temporary directory, which
+ * is deleted afterwards.
+ *
+ * Usage: LoadGenerator [clients] [seconds] [baseUrl]
+ */
+public class LoadGenerator {
+
+    // Percentage of requests that read an item; the rest adjust its quantity
+    private static final int READ_PERCENT = 90;
+
+    // Items created first when the inventory is empty
+    private static final int SEED_ITEMS = 1000;
+
+    private static final Pattern ITEM_ID = Pattern.compile("\"itemId\":(\\d+)");
+
+    public static void main(String[] args) throws Exception {
+        int clients = args.length > 0 ? Integer.parseInt(args[0]) : 32;
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+
+        String baseUrl = args.length > 2 ? args[2] : null;
+        InventoryManager manager = null;
+        InventoryServer server = null;
+        File directory = null;
+        try {
+            if (baseUrl == null) {
+                directory = Files.createTempDirectory("inventory-load").toFile();
+                FileManager.setDataDirectory(directory.getPath());
+                manager = new InventoryManager();
+                server = new InventoryServer(manager, 0);
+                server.start();
+                baseUrl = "http://localhost:" + server.getPort();
+            }
+            HttpClient client = HttpClient.newBuilder()
+                    .version(HttpClient.Version.HTTP_1_1)
+                    .connectTimeout(Duration.ofSeconds(5))
+                    .build();
+            int[] ids = loadItemIds(client, baseUrl);
+            System.out.printf("Running %d clients for %d s against %s (%d items)%n",
+                    clients, seconds, baseUrl, ids.length);
+            run(client, baseUrl, ids, clients, seconds);
+        } finally {
+            if (server != null) {
+                server.stop();
+            }
+            if (manager != null) {
+                manager.close();
+            }
+            if (directory != null) {
+                // Closes the open log segment before its directory is deleted
+                FileManager.setDataDirectory(directory.getPath() + "-closed");
+                deleteRecursively(directory);
+            }
+        }
+    }
+
+    /**
+     * Returns the IDs of up to 1000 items, creating them first if there are none
+     */
+    private static int[] loadItemIds(HttpClient client, String baseUrl) throws IOException, InterruptedException {
+        String page = send(client, HttpRequest.newBuilder(URI.create(baseUrl + "/items?limit=1000")).GET().build()).body();
+        if (page.contains("\"count\":0")) {
+            for (int i = 1; i <= SEED_ITEMS; i++) {
+                String item = "{\"name\":\"Load item " + i + "\",\"category\":\"Category " + (i % 20)
+                        + "\",\"quantity\":1000000,\"price\":" + (i % 500) + ".99,\"supplier\":\"Supplier " + (i % 50) + "\"}";
+                send(client, HttpRequest.newBuilder(URI.create(baseUrl + "/items"))
+                        .header("Content-Type", "application/json")
+                        .POST(HttpRequest.BodyPublishers.ofString(item)).build());
+            }
+            page = send(client, HttpRequest.newBuilder(URI.create(baseUrl + "/items?limit=1000")).GET().build()).body();
+        }
+
+        int[] ids = new int[SEED_ITEMS];
+        int count = 0;
+        Matcher matcher = ITEM_ID.matcher(page);
+        while (matcher.find() && count < ids.length) {
+            ids[count++] = Integer.parseInt(matcher.group(1));
+        }
+        if (count == 0) {
+            throw new IllegalStateException("The server returned no items");
+        }
+        return Arrays.copyOf(ids, count);
+    }
+
+    private static void run(HttpClient client, String baseUrl, int[] ids, int clients, int seconds)
+            throws InterruptedException {
+        long[][] latencies = new long[clients][];
+        int[] counts = new int[clients];
+        int[] errors = new int[clients];
+        long deadline = System.nanoTime() + seconds * 1_000_000_000L;
+        CountDownLatch done = new CountDownLatch(clients);
+
+        long start = System.nanoTime();
+        for (int c = 0; c < clients; c++) {
+            final int clientIndex = c;
+            Thread thread = new Thread(() -> {
+                long[] samples = new long[1024];
+                int count = 0;
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                boolean takeNext = false;
+                while (System.nanoTime() < deadline) {
+                    int id = ids[random.nextInt(ids.length)];
+                    HttpRequest request;
+                    if (random.nextInt(100) < READ_PERCENT) {
+                        request = HttpRequest.newBuilder(URI.create(baseUrl + "/items/" + id)).GET().build();
+                    } else {
+                        // Alternate taking and returning a unit so stock levels stay put
+                        takeNext = !takeNext;
+                        request = HttpRequest.newBuilder(URI.create(baseUrl + "/items/" + id
+                                + "/adjust?delta=" + (takeNext ? -1 : 1)))
+                                .POST(HttpRequest.BodyPublishers.noBody()).build();
+                    }
+
+                    long requestStart = System.nanoTime();
+                    try {
+                        if (send(client, request).statusCode() >= 500) {
+                            errors[clientIndex]++;
+                        }
+                    } catch (IOException | InterruptedException e) {
+                        errors[clientIndex]++;
+                    }
+                    if (count == samples.length) {
+                        samples = Arrays.copyOf(samples, count * 2);
+                    }
+                    samples[count++] = System.nanoTime() - requestStart;
+                }
+                latencies[clientIndex] = samples;
+                counts[clientIndex] = count;
+                done.countDown();
+            }, "load-client-" + c);
+            thread.start();
+        }
+        done.await();
+        double elapsedSeconds = (System.nanoTime() - start) / 1e9;
+
+        int total = 0;
+        int failed = 0;
+        for (int c = 0; c < clients; c++) {
+            total += counts[c];
+            failed += errors[c];
+        }
+        long[] all = new long[total];
+        int position = 0;
+        for (int c = 0; c < clients; c++) {
+            System.arraycopy(latencies[c], 0, all, position, counts[c]);
+            position += counts[c];
+        }
+        Arrays.sort(all);
+
+        System.out.printf("Requests: %d (%d failed) in %.1f s%n", total, failed, elapsedSeconds);
+        System.out.printf("Throughput: %.0f requests/s%n", total / elapsedSeconds);
+        System.out.printf("Latency: p50 %.2f ms, p99 %.2f ms, p99.9 %.2f ms, max %.2f ms%n",
+                percentile(all, 50) / 1e6, percentile(all, 99) / 1e6, percentile(all, 99.9) / 1e6,
+                (total == 0 ? 0 : all[total - 1]) / 1e6);
+    }
+
+    private static long percentile(long[] sorted, double percent) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(percent / 100.0 * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(index, sorted.length - 1))];
+    }
+
+    private static void deleteRecursively(File file) throws IOException {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                deleteRecursively(child);
+            }
+        }
+        Files.deleteIfExists(file.toPath());
+    }
+
+    private static HttpResponse<String> send(HttpClient client, HttpRequest request)
+            throws IOException, InterruptedException {
+        return client.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+}
@@ -0,0 +1,166 @@
+package src;
+
+import src.datastructures.CustomArrayList;
+import java.util.Iterator;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Tracks the items whose quantity is below their reorder threshold
+ * Only those items are indexed, ordered by how far they are below it, so
+ * listing k of them costs O(log n + k) and memory grows with the number of
+ * low items, not with the inventory. Every item has the default threshold
+ * unless it was given its own. Listeners hear about an item the moment a
+ * change takes it below its threshold or back up to it.
+ *
+ * refresh may be called concurrently for the same item, as lock-free
+ * quantity adjustments do: it always indexes the quantity the item has
+ * when the call runs, so the last call leaves the right entry.
+ */
+public class LowStockMonitor {
+
+    /**
+     * Receives threshold crossings
+     */
+    public interface Listener {
+        /**
+         * Called on the thread that changed the item, while the store is
+         * locked for it; must return quickly and must not wait for other threads
+         * @param item The item
+         * @param threshold Its reorder threshold
+         * @param below true if it fell below the threshold, false if it was restocked
+         */
+        void thresholdCrossed(InventoryItem item, int threshold, boolean below);
+    }
+
+    private final int defaultThreshold;
+
+    // Thresholds of the items that do not use the default
+    private final ConcurrentHashMap<Integer, Integer> thresholds = new ConcurrentHashMap<>();
+
+    // Index key of every low item, by itemId; compute on it serializes the changes of one item
+    private final ConcurrentHashMap<Integer, Long> lowKeys = new ConcurrentHashMap<>();
+
+    // Low items ordered by quantity minus threshold, then itemId, packed into one long
+    private final ConcurrentSkipListSet<Long> lowItems = new ConcurrentSkipListSet<>();
+
+    private final CopyOnWriteArrayList<Listener> listeners = new CopyOnWriteArrayList<>();
+
+    /**
+     * Constructor
+     * @param defaultThreshold The threshold of items that were not given one
+     */
+    public LowStockMonitor(int defaultThreshold) {
+        if (defaultThreshold < 0) {
+            throw new IllegalArgumentException("Illegal reorder threshold: " + defaultThreshold);
+        }
+        this.defaultThreshold = defaultThreshold;
+    }
+
+    /**
+     * Registers a listener for threshold crossings
+     * @param listener The listener
+     */
+    public void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Returns the reorder threshold of an item
+     * @param itemId The item ID
+     * @return Its own threshold, or the default
+     */
+    public int getThreshold(int itemId) {
+        Integer threshold = thresholds.get(itemId);
+        return threshold == null ? defaultThreshold : threshold;
+    }
+
+    /**
+     * Gives an item its own reorder threshold and re-checks it
+     * The caller must keep the item from changing meanwhile.
+     * @param item The item
+     * @param threshold The threshold, 0 to never report the item
+     */
+    public void setThreshold(InventoryItem item, int threshold) {
+        if (threshold < 0) {
+            throw new IllegalArgumentException("Illegal reorder threshold: " + threshold);
+        }
+        thresholds.put(item.getItemId(), threshold);
+        refresh(item.getItemId(), item);
+    }
+
+    /**
+     * Re-checks an item after it was stored or its quantity changed
+     * @param itemId The item ID
+     * @param item The item as now stored
+     */
+    public void refresh(int itemId, InventoryItem item) {
+        int threshold = getThreshold(itemId);
+        final boolean[] crossed = {false};
+        final boolean[] below = {false};
+        lowKeys.compute(itemId, (id, oldKey) -> {
+            int quantity = item.getQuantity();
+            Long newKey = quantity < threshold ? key(quantity - threshold, id) : null;
+            if (!Objects.equals(oldKey, newKey)) {
+                if (oldKey != null) {
+                    lowItems.remove(oldKey);
+                }
+                if (newKey != null) {
+                    lowItems.add(newKey);
+                }
+            }
+            crossed[0] = (oldKey == null) != (newKey == null);
+            below[0] = newKey != null;
+            return newKey;
+        });
+
+        if (crossed[0]) {
+            for (Listener listener : listeners) {
+                listener.thresholdCrossed(item, threshold, below[0]);
+            }
+        }
+    }
+
+    /**
+     * Stops tracking a deleted item and drops its threshold
+     * @param itemId The item ID
+     */
+    public void remove(int itemId) {
+        lowKeys.compute(itemId, (id, oldKey) -> {
+            if (oldKey != null) {
+                lowItems.remove(oldKey);
+            }
+            return null;
+        });
+        thresholds.remove(itemId);
+    }
+
+    /**
+     * Returns the IDs of items below their threshold, furthest below first
+     * @param limit Maximum number of IDs to return
+     * @return The item IDs
+     */
+    public CustomArrayList<Integer> lowItemIds(int limit) {
+        CustomArrayList<Integer> ids = new CustomArrayList<>();
+        Iterator<Long> keys = lowItems.iterator();
+        while (ids.size() < limit && keys.hasNext()) {
+            ids.add(itemIdOf(keys.next()));
+        }
+        return ids;
+    }
+
+    // The shortfall is negative, so signed order of the high half sorts the lowest items first
+    private static long key(int shortfall, int itemId) {
+        return ((long) shortfall << 32) | (itemId & 0xFFFFFFFFL);
+    }
+
+    private static int itemIdOf(long key) {
+        return (int) key;
+    }
+}
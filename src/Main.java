@@ -1,13 +1,39 @@
 package src;
 
+import java.io.IOException;
+
 /**
  * Main entry point for the Inventory Management System
- * Initializes the system with dummy data and starts the CLI
+ * Initializes the system with dummy data and starts the CLI, or with
+ * "--server [port]" serves the inventory over HTTP instead, or with
+ * "--batch [script] [--pipeline]" runs a command script
  */
 public class Main {
-    public static void main(String[] args) {
+    public static void main(String[] args) throws IOException {
+        if (args.length > 0 && args[0].equals("--batch")) {
+            // --batch [script] [--pipeline]; without a script, commands are read from standard input
+            String scriptPath = null;
+            boolean pipelined = false;
+            for (int i = 1; i < args.length; i++) {
+                if (args[i].equals("--pipeline")) {
+                    pipelined = true;
+                } else {
+                    scriptPath = args[i];
+                }
+            }
+            System.exit(CLI.runBatch(scriptPath, pipelined));
+        }
+
         System.out.println("Starting Inventory Management System...");
 
+        if (args.length > 0 && args[0].equals("--server")) {
+            int port = args.length > 1 ? Integer.parseInt(args[1]) : 8080;
+            InventoryServer server = new InventoryServer(new InventoryManager(), port);
+            server.start();
+            System.out.println("Serving inventory on http://localhost:" + server.getPort() + "/items");
+            return;
+        }
+
         // Add dummy data
 //        addDummyData();
 
@@ -0,0 +1,269 @@
+package src;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Latency histograms and counters of store and file operations
+ * Disabled by default; while disabled, timing an operation costs one
+ * volatile read. Start with -Dinventory.metrics=true to enable them, and
+ * with -Dinventory.metrics.file=path to also append a report to that file
+ * every -Dinventory.metrics.interval seconds (60 by default).
+ *
+ * Usage:
+ *   long start = Metrics.start();
+ *   try { ... } finally { Metrics.record(Metrics.Operation.READ, start); }
+ */
+public class Metrics {
+
+    /**
+     * The timed operations
+     */
+    public enum Operation {
+        CREATE("create"),
+        READ("read"),
+        UPDATE("update"),
+        DELETE("delete"),
+        ADJUST("adjust"),
+        BATCH("batch"),
+        IMPORT("import"),
+        COMPACT("compact"),
+        FIND_BY_CATEGORY("find by category"),
+        FIND_BY_SUPPLIER("find by supplier"),
+        SEARCH_BY_NAME("search by name"),
+        FIND_BY_ID_RANGE("find by ID range"),
+        FIND_BY_PRICE_RANGE("find by price range"),
+        LIST("list"),
+        SORT_FOR_DISPLAY("sort for display"),
+        FILE_LOAD("file: load store"),
+        FILE_PARSE_ROW("file: parse row"),
+        FILE_REPLAY_SEGMENT("file: replay log segment"),
+        FILE_WRITE_SNAPSHOT("file: write snapshot"),
+        FILE_APPEND_LOG("file: append log"),
+        FILE_ID_MARK("file: read/write ID mark");
+
+        private final String label;
+
+        Operation(String label) {
+            this.label = label;
+        }
+
+        public String getLabel() {
+            return label;
+        }
+    }
+
+    /**
+     * The counted quantities
+     */
+    public enum Counter {
+        BYTES_READ("bytes read"),
+        BYTES_WRITTEN("bytes written"),
+        ROWS_PARSED("rows parsed"),
+        PARSE_ERRORS("rows rejected"),
+        LOG_RECORDS_WRITTEN("log records written"),
+        LOG_RECORDS_REPLAYED("log records replayed"),
+        IO_ERRORS("I/O errors");
+
+        private final String label;
+
+        Counter(String label) {
+            this.label = label;
+        }
+
+        public String getLabel() {
+            return label;
+        }
+    }
+
+    private static volatile boolean enabled = Boolean.getBoolean("inventory.metrics")
+            || System.getProperty("inventory.metrics.file") != null;
+
+    private static final LatencyHistogram[] histograms = new LatencyHistogram[Operation.values().length];
+    private static final LongAdder[] counters = new LongAdder[Counter.values().length];
+
+    static {
+        for (int i = 0; i < histograms.length; i++) {
+            histograms[i] = new LatencyHistogram();
+        }
+        for (int i = 0; i < counters.length; i++) {
+            counters[i] = new LongAdder();
+        }
+    }
+
+    // Writes the periodic report, and a last one when the JVM exits
+    private static ScheduledExecutorService dumper;
+    private static ScheduledFuture<?> dumpTask;
+    private static String dumpFile;
+    private static Supplier<String> dumpReport;
+
+    private Metrics() {
+    }
+
+    /**
+     * Checks whether operations are being measured
+     * @return true if enabled
+     */
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Turns measuring on or off; the values recorded so far are kept
+     * @param enabled true to measure
+     */
+    public static void setEnabled(boolean enabled) {
+        Metrics.enabled = enabled;
+    }
+
+    /**
+     * Marks the start of a timed operation
+     * @return The start time to pass to record, or 0 if measuring is disabled
+     */
+    public static long start() {
+        return enabled ? System.nanoTime() : 0;
+    }
+
+    /**
+     * Records the duration of an operation started with start
+     * @param operation The operation
+     * @param start The value returned by start
+     */
+    public static void record(Operation operation, long start) {
+        if (start != 0) {
+            histograms[operation.ordinal()].record(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Adds to a counter if measuring is enabled
+     * @param counter The counter
+     * @param amount The amount to add
+     */
+    public static void count(Counter counter, long amount) {
+        if (enabled) {
+            counters[counter.ordinal()].add(amount);
+        }
+    }
+
+    /**
+     * Returns the histogram of an operation
+     * @param operation The operation
+     * @return Its histogram
+     */
+    public static LatencyHistogram getHistogram(Operation operation) {
+        return histograms[operation.ordinal()];
+    }
+
+    /**
+     * Returns the value of a counter
+     * @param counter The counter
+     * @return Its value
+     */
+    public static long getCount(Counter counter) {
+        return counters[counter.ordinal()].sum();
+    }
+
+    /**
+     * Clears every histogram and counter
+     */
+    public static void reset() {
+        for (LatencyHistogram histogram : histograms) {
+            histogram.reset();
+        }
+        for (LongAdder counter : counters) {
+            counter.reset();
+        }
+    }
+
+    /**
+     * Formats every operation that ran at least once and every counter
+     * @return The report, one line per operation or counter
+     */
+    public static String report() {
+        StringBuilder report = new StringBuilder();
+        report.append(String.format("%-26s %10s %10s %10s %10s %10s %10s%n",
+                "Operation", "Count", "Mean us", "p50 us", "p99 us", "p99.9 us", "Max us"));
+        for (Operation operation : Operation.values()) {
+            LatencyHistogram histogram = histograms[operation.ordinal()];
+            if (histogram.getCount() == 0) {
+                continue;
+            }
+            report.append(String.format("%-26s %10d %10.1f %10.1f %10.1f %10.1f %10.1f%n",
+                    operation.getLabel(), histogram.getCount(), histogram.getMeanNanos() / 1e3,
+                    histogram.getPercentileNanos(50) / 1e3, histogram.getPercentileNanos(99) / 1e3,
+                    histogram.getPercentileNanos(99.9) / 1e3, histogram.getMaxNanos() / 1e3));
+        }
+        for (Counter counter : Counter.values()) {
+            report.append(String.format("%-26s %10d%n", counter.getLabel(), getCount(counter)));
+        }
+        return report.toString();
+    }
+
+    /**
+     * Appends a timestamped report to a file at a fixed rate, on a daemon
+     * thread, and once more on exit; a later call replaces the earlier schedule
+     * @param filePath The file to append to
+     * @param intervalSeconds Seconds between reports
+     * @param report Produces the report to write
+     */
+    public static synchronized void startPeriodicDump(String filePath, long intervalSeconds, Supplier<String> report) {
+        if (intervalSeconds < 1) {
+            throw new IllegalArgumentException("Illegal dump interval: " + intervalSeconds);
+        }
+        if (dumper == null) {
+            dumper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "inventory-metrics-dump");
+                thread.setDaemon(true);
+                return thread;
+            });
+            Runtime.getRuntime().addShutdownHook(new Thread(Metrics::dumpOnExit, "inventory-metrics-exit"));
+        }
+        if (dumpTask != null) {
+            dumpTask.cancel(false);
+        }
+        dumpFile = filePath;
+        dumpReport = report;
+        dumpTask = dumper.scheduleAtFixedRate(() -> dump(filePath, report),
+                intervalSeconds, intervalSeconds, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Stops the periodic report, if any
+     */
+    public static synchronized void stopPeriodicDump() {
+        if (dumpTask != null) {
+            dumpTask.cancel(false);
+            dumpTask = null;
+        }
+    }
+
+    private static synchronized void dumpOnExit() {
+        if (dumpTask != null) {
+            dumpTask.cancel(false);
+            dump(dumpFile, dumpReport);
+        }
+    }
+
+    // Synchronized so the exit report never interleaves with a periodic one
+    private static synchronized void dump(String filePath, Supplier<String> report) {
+        try (Writer writer = new OutputStreamWriter(new FileOutputStream(filePath, true), StandardCharsets.UTF_8)) {
+            writer.write("--- " + LocalDateTime.now().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME) + " ---\n");
+            writer.write(report.get());
+            writer.write("\n");
+        } catch (IOException | RuntimeException e) {
+            System.out.println("Error writing statistics: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,264 @@
+package src;
+
+import src.datastructures.BoundedHeap;
+import src.datastructures.CustomArrayList;
+import src.datastructures.IntHashMap;
+import src.datastructures.Trie;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Name search index over InventoryItem.name
+ * A trie over the whole name and each of its words answers prefix
+ * queries, and a trigram index answers substring and typo-tolerant
+ * queries. Both are updated incrementally and results are ranked.
+ */
+public class NameIndex {
+
+    // Minimum trigram similarity for a fuzzy match
+    private static final double MIN_SIMILARITY = 0.3;
+
+    // Ranking tiers, higher is better
+    private static final double EXACT_SCORE = 4.0;
+    private static final double NAME_PREFIX_SCORE = 3.0;
+    private static final double WORD_PREFIX_SCORE = 2.5;
+    private static final double SUBSTRING_SCORE = 2.0;
+
+    // Best match first: higher score, then shorter name, then lower ID
+    private static final Comparator<Match> RANKING = (a, b) -> {
+        int byScore = Double.compare(b.score, a.score);
+        if (byScore != 0) {
+            return byScore;
+        }
+        int byLength = Integer.compare(a.name.length(), b.name.length());
+        if (byLength != 0) {
+            return byLength;
+        }
+        return Integer.compare(a.item.getItemId(), b.item.getItemId());
+    };
+
+    private final Trie<InventoryItem> prefixes = new Trie<>();
+    private final HashMap<String, HashSet<InventoryItem>> trigrams = new HashMap<>();
+
+    // Normalized name of every indexed item by itemId, so searches never re-derive it
+    private final IntHashMap<IndexedName> names = new IntHashMap<>();
+
+    // An item's name as indexed
+    private static class IndexedName {
+        final String name;
+        final int trigramCount;
+
+        IndexedName(String name, int trigramCount) {
+            this.name = name;
+            this.trigramCount = trigramCount;
+        }
+    }
+
+    // A ranked candidate
+    private static class Match {
+        final InventoryItem item;
+        final String name;
+        double score;
+
+        Match(InventoryItem item, String name) {
+            this.item = item;
+            this.name = name;
+        }
+    }
+
+    /**
+     * Indexes an item's name
+     * @param item The item to add
+     */
+    public void add(InventoryItem item) {
+        String name = normalize(item.getName());
+        for (String key : prefixKeys(name)) {
+            prefixes.insert(key, item);
+        }
+        String[] nameTrigrams = trigramsOf(name);
+        names.put(item.getItemId(), new IndexedName(name, nameTrigrams.length));
+        for (String trigram : nameTrigrams) {
+            HashSet<InventoryItem> postings = trigrams.get(trigram);
+            if (postings == null) {
+                postings = new HashSet<>();
+                trigrams.put(trigram, postings);
+            }
+            postings.add(item);
+        }
+    }
+
+    /**
+     * Removes an item's name from the index
+     * Must be called with the item object that was indexed.
+     * @param item The item to remove
+     */
+    public void remove(InventoryItem item) {
+        IndexedName indexed = names.remove(item.getItemId());
+        if (indexed == null) {
+            return;
+        }
+        String name = indexed.name;
+        for (String key : prefixKeys(name)) {
+            prefixes.remove(key, item);
+        }
+        for (String trigram : trigramsOf(name)) {
+            HashSet<InventoryItem> postings = trigrams.get(trigram);
+            if (postings != null) {
+                postings.remove(item);
+                if (postings.isEmpty()) {
+                    trigrams.remove(trigram);
+                }
+            }
+        }
+    }
+
+    /**
+     * Searches names by prefix, substring and similarity
+     * Exact names rank first, then names and words starting with the query,
+     * then names containing it, then similar names. Ties go to shorter
+     * names and then lower IDs, so pages are stable. Only the best
+     * offset + limit matches are kept while ranking, instead of sorting all.
+     * @param query The text to search for
+     * @param offset Number of ranked results to skip
+     * @param limit Maximum number of results to return
+     * @return One page of matching items
+     */
+    public CustomArrayList<InventoryItem> search(String query, int offset, int limit) {
+        String normalized = normalize(query);
+        CustomArrayList<InventoryItem> page = new CustomArrayList<>();
+        if (normalized.isEmpty() || limit <= 0) {
+            return page;
+        }
+
+        HashMap<InventoryItem, Match> candidates = new HashMap<>();
+
+        // Prefix matches straight from the trie, which only holds keys that start with the query
+        prefixes.visitPrefix(normalized, item -> {
+            if (!candidates.containsKey(item)) {
+                candidates.put(item, new Match(item, names.get(item.getItemId()).name));
+            }
+            return true;
+        });
+
+        // Substring and fuzzy candidates share trigrams with the query
+        String[] queryTrigrams = trigramsOf(normalized);
+        HashMap<InventoryItem, Integer> sharedCounts = new HashMap<>();
+        for (String trigram : queryTrigrams) {
+            HashSet<InventoryItem> postings = trigrams.get(trigram);
+            if (postings != null) {
+                for (InventoryItem item : postings) {
+                    sharedCounts.merge(item, 1, Integer::sum);
+                }
+            }
+        }
+
+        int skip = Math.max(offset, 0);
+        int capacity = (int) Math.min((long) skip + limit, (long) candidates.size() + sharedCounts.size());
+        BoundedHeap<Match> ranked = new BoundedHeap<>(capacity, RANKING);
+        for (Match match : candidates.values()) {
+            match.score = prefixScore(match.name, normalized);
+            ranked.offer(match);
+        }
+        for (Map.Entry<InventoryItem, Integer> entry : sharedCounts.entrySet()) {
+            if (candidates.containsKey(entry.getKey())) {
+                continue;
+            }
+            IndexedName indexed = names.get(entry.getKey().getItemId());
+            Match match = new Match(entry.getKey(), indexed.name);
+            if (match.name.contains(normalized)) {
+                match.score = SUBSTRING_SCORE;
+            } else {
+                int shared = entry.getValue();
+                int union = queryTrigrams.length + indexed.trigramCount - shared;
+                double similarity = union == 0 ? 0 : (double) shared / union;
+                if (similarity < MIN_SIMILARITY) {
+                    continue;
+                }
+                match.score = similarity;
+            }
+            ranked.offer(match);
+        }
+
+        CustomArrayList<Match> best = ranked.drainSorted();
+        for (int i = skip; i < best.size(); i++) {
+            page.add(best.get(i).item);
+        }
+        return page;
+    }
+
+    private static double prefixScore(String name, String query) {
+        if (name.equals(query)) {
+            return EXACT_SCORE;
+        }
+        if (name.startsWith(query)) {
+            return NAME_PREFIX_SCORE;
+        }
+        return WORD_PREFIX_SCORE;
+    }
+
+    /**
+     * Returns the trie keys of a name: the whole name plus each distinct word
+     */
+    private static String[] prefixKeys(String name) {
+        String[] words = name.isEmpty() ? new String[0] : name.split(" ");
+        CustomArrayList<String> keys = new CustomArrayList<>(words.length + 1);
+        keys.add(name);
+        for (String word : words) {
+            if (!word.isEmpty() && !keys.contains(word)) {
+                keys.add(word);
+            }
+        }
+
+        String[] result = new String[keys.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = keys.get(i);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the distinct trigrams of a name padded with spaces, so short
+     * names and word boundaries contribute trigrams too
+     */
+    private static String[] trigramsOf(String name) {
+        if (name.isEmpty()) {
+            return new String[0];
+        }
+
+        String padded = " " + name + " ";
+        HashSet<String> result = new HashSet<>(padded.length() * 2);
+        for (int i = 0; i + 3 <= padded.length(); i++) {
+            result.add(padded.substring(i, i + 3));
+        }
+        return result.toArray(new String[0]);
+    }
+
+    /**
+     * Lower-cases a name, trims it and collapses runs of whitespace into one
+     * space, in one pass instead of a regular expression
+     */
+    private static String normalize(String name) {
+        if (name == null) {
+            return "";
+        }
+        String lower = name.toLowerCase(Locale.ROOT);
+        StringBuilder result = new StringBuilder(lower.length());
+        boolean pendingSpace = false;
+        for (int i = 0; i < lower.length(); i++) {
+            char c = lower.charAt(i);
+            if (Character.isWhitespace(c)) {
+                pendingSpace = result.length() > 0;
+            } else {
+                if (pendingSpace) {
+                    result.append(' ');
+                    pendingSpace = false;
+                }
+                result.append(c);
+            }
+        }
+        return result.toString();
+    }
+}
@@ -0,0 +1,34 @@
+package src;
+
+import java.util.Comparator;
+
+/**
+ * Sort orders available for listing inventory items
+ * Every order ends with itemId, so it is total and can be used as a paging cursor.
+ */
+public enum SortKey {
+    ID(Comparator.comparingInt(InventoryItem::getItemId)),
+    NAME(Comparator.comparing(InventoryItem::getName)
+            .thenComparingInt(InventoryItem::getItemId)),
+    CATEGORY(Comparator.comparing(InventoryItem::getCategory)
+            .thenComparing(InventoryItem::getName)
+            .thenComparingInt(InventoryItem::getItemId)),
+    QUANTITY(Comparator.comparingInt(InventoryItem::getQuantity)
+            .thenComparingInt(InventoryItem::getItemId)),
+    PRICE(Comparator.comparingDouble(InventoryItem::getPrice)
+            .thenComparingInt(InventoryItem::getItemId));
+
+    private final Comparator<InventoryItem> comparator;
+
+    SortKey(Comparator<InventoryItem> comparator) {
+        this.comparator = comparator;
+    }
+
+    /**
+     * Returns the comparator for this order
+     * @return The comparator
+     */
+    public Comparator<InventoryItem> getComparator() {
+        return comparator;
+    }
+}
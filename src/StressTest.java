@@ -0,0 +1,257 @@
+package src;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import src.datastructures.CustomArrayList;
+
+/**
+ * Concurrent stress test of InventoryManager
+ * For 1, 2, 4, ... up to the given number of threads it runs a mix of
+ * reads, quantity adjustments, reservations, creates, updates and deletes
+ * against a fresh store in a temporary directory, then checks that no
+ * update was lost: every quantity and item must match what the threads
+ * were told succeeded, both in memory and after reloading from disk, and
+ * the category totals must agree with the items. A second phase lets every
+ * thread reserve single units of one item until it runs out, which must
+ * hand out exactly the stock there was. Prints the throughput of each run
+ * and exits with status 1 if any check failed.
+ *
+ * Usage: StressTest [maxThreads] [operationsPerThread]
+ */
+public class StressTest {
+
+    // Items every thread adjusts and reserves
+    private static final int SHARED_ITEMS = 64;
+    private static final int SHARED_QUANTITY = 1000;
+
+    // Units of the item raced for in the reservation phase
+    private static final int CONTENDED_QUANTITY = 20000;
+
+    private static int failures;
+
+    public static void main(String[] args) throws Exception {
+        int maxThreads = args.length > 0 ? Integer.parseInt(args[0]) : Runtime.getRuntime().availableProcessors();
+        int operations = args.length > 1 ? Integer.parseInt(args[1]) : 5000;
+
+        System.out.printf("%8s %10s %10s %12s %14s%n", "Threads", "Ops", "Seconds", "Ops/s", "Reserves/s");
+        for (int threads = 1; threads <= maxThreads; threads *= 2) {
+            run(threads, operations);
+        }
+
+        if (failures > 0) {
+            System.out.println(failures + " check(s) failed");
+            System.exit(1);
+        }
+        System.out.println("All checks passed");
+        System.exit(0);
+    }
+
+    /**
+     * Runs both phases with one thread count against a new store
+     */
+    private static void run(int threads, int operations) throws Exception {
+        File directory = Files.createTempDirectory("inventory-stress").toFile();
+        FileManager.setDataDirectory(directory.getPath());
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            InventoryManager manager = new InventoryManager();
+            int[] sharedIds = new int[SHARED_ITEMS];
+            for (int i = 0; i < SHARED_ITEMS; i++) {
+                sharedIds[i] = manager.allocateItemId();
+                check(manager.createItem(new InventoryItem(sharedIds[i], "Shared " + i, "Category " + (i % 4),
+                        SHARED_QUANTITY, 1.25, "Supplier " + (i % 3))), "create shared item " + sharedIds[i]);
+            }
+
+            // Phase 1: mixed operations
+            CustomArrayList<Future<Worker>> futures = new CustomArrayList<>();
+            CountDownLatch start = new CountDownLatch(1);
+            for (int t = 0; t < threads; t++) {
+                futures.add(pool.submit(new Worker(manager, sharedIds, operations, t, start)));
+            }
+            long startTime = System.nanoTime();
+            start.countDown();
+            long[] expectedShared = new long[SHARED_ITEMS];
+            Map<Integer, InventoryItem> expectedOwn = new HashMap<>();
+            for (int i = 0; i < futures.size(); i++) {
+                Worker worker = futures.get(i).get();
+                for (int j = 0; j < SHARED_ITEMS; j++) {
+                    expectedShared[j] += worker.sharedDeltas[j];
+                }
+                expectedOwn.putAll(worker.ownItems);
+            }
+            double mixedSeconds = (System.nanoTime() - startTime) / 1e9;
+
+            verify(manager, sharedIds, expectedShared, expectedOwn, "in memory");
+            manager.close();
+            manager = new InventoryManager();
+            verify(manager, sharedIds, expectedShared, expectedOwn, "after reload");
+
+            // Phase 2: every thread reserves one unit at a time of the same item
+            int contendedId = manager.allocateItemId();
+            check(manager.createItem(new InventoryItem(contendedId, "Contended", "Contended", CONTENDED_QUANTITY,
+                    1.0, "Contended")), "create contended item");
+            AtomicInteger reserved = new AtomicInteger();
+            CustomArrayList<Future<Object>> racers = new CustomArrayList<>();
+            InventoryManager store = manager;
+            Callable<Object> racer = () -> {
+                while (store.reserve(contendedId, 1)) {
+                    reserved.incrementAndGet();
+                }
+                return null;
+            };
+            startTime = System.nanoTime();
+            for (int t = 0; t < threads; t++) {
+                racers.add(pool.submit(racer));
+            }
+            for (int i = 0; i < racers.size(); i++) {
+                racers.get(i).get();
+            }
+            double reserveSeconds = (System.nanoTime() - startTime) / 1e9;
+            check(reserved.get() == CONTENDED_QUANTITY,
+                    "reserved " + reserved.get() + " units of " + CONTENDED_QUANTITY);
+            check(manager.readItem(contendedId).getQuantity() == 0, "contended item left with stock");
+            manager.close();
+            check(new InventoryManager().readItem(contendedId).getQuantity() == 0,
+                    "contended item has stock after reload");
+
+            long totalOperations = (long) threads * operations;
+            System.out.printf("%8d %10d %10.2f %12.0f %14.0f%n", threads, totalOperations, mixedSeconds,
+                    totalOperations / mixedSeconds, CONTENDED_QUANTITY / reserveSeconds);
+        } finally {
+            pool.shutdown();
+            // Closes the open log segment before its directory is deleted
+            FileManager.setDataDirectory(directory.getPath() + "-closed");
+            deleteRecursively(directory);
+        }
+    }
+
+    /**
+     * One thread's share of the mixed phase. Shared items are only adjusted
+     * and reserved, so their expected quantity is the sum of the successful
+     * changes; each thread creates, updates and deletes items of its own.
+     */
+    private static class Worker implements Callable<Worker> {
+        private final InventoryManager manager;
+        private final int[] sharedIds;
+        private final int operations;
+        private final Random random;
+        private final CountDownLatch start;
+        final long[] sharedDeltas = new long[SHARED_ITEMS];
+        final Map<Integer, InventoryItem> ownItems = new HashMap<>();
+        private final CustomArrayList<Integer> ownIds = new CustomArrayList<>();
+
+        Worker(InventoryManager manager, int[] sharedIds, int operations, int seed, CountDownLatch start) {
+            this.manager = manager;
+            this.sharedIds = sharedIds;
+            this.operations = operations;
+            this.random = new Random(seed);
+            this.start = start;
+        }
+
+        @Override
+        public Worker call() throws InterruptedException {
+            start.await();
+            for (int i = 0; i < operations; i++) {
+                int shared = random.nextInt(SHARED_ITEMS);
+                int choice = random.nextInt(100);
+                if (choice < 30) {
+                    InventoryItem item = manager.readItem(sharedIds[shared]);
+                    check(item != null && item.getQuantity() >= 0, "read shared item " + sharedIds[shared]);
+                } else if (choice < 55) {
+                    int delta = random.nextInt(11) - 5;
+                    if (manager.adjustQuantity(sharedIds[shared], delta) >= 0) {
+                        sharedDeltas[shared] += delta;
+                    }
+                } else if (choice < 75) {
+                    int count = 1 + random.nextInt(5);
+                    if (manager.reserve(sharedIds[shared], count)) {
+                        sharedDeltas[shared] -= count;
+                    }
+                } else if (choice < 85 || ownIds.isEmpty()) {
+                    InventoryItem item = new InventoryItem(manager.allocateItemId(), "Own " + i,
+                            "Category " + random.nextInt(4), random.nextInt(100), 2.5, "Supplier " + random.nextInt(3));
+                    check(manager.createItem(item), "create item " + item.getItemId());
+                    ownIds.add(item.getItemId());
+                    ownItems.put(item.getItemId(), copy(item));
+                } else if (choice < 95) {
+                    int id = ownIds.get(random.nextInt(ownIds.size()));
+                    InventoryItem item = new InventoryItem(id, "Updated " + i, "Category " + random.nextInt(4),
+                            random.nextInt(100), 0.5 + random.nextInt(100), "Supplier " + random.nextInt(3));
+                    check(manager.updateItem(id, item), "update item " + id);
+                    ownItems.put(id, copy(item));
+                } else {
+                    int index = random.nextInt(ownIds.size());
+                    int id = ownIds.remove(index);
+                    check(manager.deleteItem(id), "delete item " + id);
+                    ownItems.remove(id);
+                }
+            }
+            return this;
+        }
+    }
+
+    /**
+     * Checks every item against the expected state, and the category totals against the items
+     */
+    private static void verify(InventoryManager manager, int[] sharedIds, long[] expectedShared,
+                               Map<Integer, InventoryItem> expectedOwn, String stage) {
+        long expectedUnits = 0;
+        for (int i = 0; i < sharedIds.length; i++) {
+            long expected = SHARED_QUANTITY + expectedShared[i];
+            InventoryItem item = manager.readItem(sharedIds[i]);
+            check(item != null && item.getQuantity() == expected, "shared item " + sharedIds[i] + " " + stage
+                    + ": expected " + expected + ", found " + (item == null ? "nothing" : item.getQuantity()));
+            expectedUnits += expected;
+        }
+        for (InventoryItem expected : expectedOwn.values()) {
+            InventoryItem item = manager.readItem(expected.getItemId());
+            check(item != null && item.getQuantity() == expected.getQuantity()
+                            && item.getPrice() == expected.getPrice() && item.getName().equals(expected.getName()),
+                    "item " + expected.getItemId() + " " + stage + " does not match its last update");
+            expectedUnits += expected.getQuantity();
+        }
+
+        long units = 0;
+        long itemCount = 0;
+        CustomArrayList<InventoryAggregates.Summary> totals = manager.getCategoryTotals();
+        for (int i = 0; i < totals.size(); i++) {
+            units += totals.get(i).getUnits();
+            itemCount += totals.get(i).getItemCount();
+        }
+        check(units == expectedUnits, "category totals " + stage + ": " + units + " units, expected " + expectedUnits);
+        check(itemCount == sharedIds.length + expectedOwn.size(), "category totals " + stage + ": "
+                + itemCount + " items, expected " + (sharedIds.length + expectedOwn.size()));
+    }
+
+    private static InventoryItem copy(InventoryItem item) {
+        return new InventoryItem(item.getItemId(), item.getName(), item.getCategory(),
+                item.getQuantity(), item.getPrice(), item.getSupplier());
+    }
+
+    private static synchronized void check(boolean condition, String description) {
+        if (!condition) {
+            failures++;
+            System.out.println("FAILED: " + description);
+        }
+    }
+
+    private static void deleteRecursively(File file) throws IOException {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                deleteRecursively(child);
+            }
+        }
+        Files.deleteIfExists(file.toPath());
+    }
+}
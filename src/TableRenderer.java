@@ -0,0 +1,174 @@
+package src;
+
+import src.datastructures.CustomArrayList;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.text.DecimalFormatSymbols;
+import java.util.Formatter;
+import java.util.Locale;
+
+/**
+ * Renders inventory items as the fixed-width table shown by the CLI
+ * Rows are formatted into one reusable buffer and written out in large
+ * chunks, instead of one printf call (and usually one write) per row.
+ * The output can go to the console, a file or a pipe.
+ */
+public class TableRenderer implements Flushable {
+
+    // Buffered characters that trigger a write to the underlying writer
+    private static final int FLUSH_THRESHOLD = 64 * 1024;
+
+    private static final String TITLE = "------------------------------ INVENTORY ITEMS ------------------------------";
+    private static final String RULE = "--------------------------------------------------------------------------";
+
+    private final Writer out;
+    private final StringBuilder buffer = new StringBuilder(FLUSH_THRESHOLD + 512);
+    private char[] chunk = new char[FLUSH_THRESHOLD + 512];
+    private final Formatter formatter;
+    private final boolean asciiDigits;
+    private final String newline = System.lineSeparator();
+
+    /**
+     * Constructor renders into a writer
+     * @param out The destination; it is flushed but never closed by the renderer
+     */
+    public TableRenderer(Writer out) {
+        this.out = out;
+        Locale locale = Locale.getDefault(Locale.Category.FORMAT);
+        this.formatter = new Formatter(buffer, locale);
+        this.asciiDigits = DecimalFormatSymbols.getInstance(locale).getZeroDigit() == '0';
+    }
+
+    /**
+     * Creates a renderer that writes to standard output
+     * @return The renderer
+     */
+    public static TableRenderer toConsole() {
+        return new TableRenderer(new OutputStreamWriter(System.out, Charset.defaultCharset()));
+    }
+
+    /**
+     * Renders a complete table, including the header and the item count, and flushes it
+     * @param itemList The items to render, in display order
+     * @throws IOException If writing fails
+     */
+    public void renderTable(CustomArrayList<InventoryItem> itemList) throws IOException {
+        renderHeader();
+        for (int i = 0; i < itemList.size(); i++) {
+            renderRow(itemList.get(i));
+        }
+        renderFooter(itemList.size());
+        flush();
+    }
+
+    /**
+     * Renders the table title and column headings
+     * @throws IOException If writing fails
+     */
+    public void renderHeader() throws IOException {
+        buffer.append(newline).append(TITLE).append(newline);
+        pad("ID", 10);
+        buffer.append(' ');
+        pad("NAME", 20);
+        buffer.append(' ');
+        pad("CATEGORY", 15);
+        buffer.append(' ');
+        pad("QUANTITY", 10);
+        buffer.append(' ');
+        pad("PRICE", 10);
+        buffer.append(' ');
+        pad("SUPPLIER", 15);
+        buffer.append(newline).append(RULE).append(newline);
+        flushIfFull();
+    }
+
+    /**
+     * Renders one item row
+     * @param item The item to render
+     * @throws IOException If writing fails
+     */
+    public void renderRow(InventoryItem item) throws IOException {
+        pad(Integer.toString(item.getItemId()), 10);
+        buffer.append(' ');
+        pad(truncateString(item.getName(), 20), 20);
+        buffer.append(' ');
+        pad(truncateString(item.getCategory(), 15), 15);
+        buffer.append(' ');
+        if (asciiDigits) {
+            pad(Integer.toString(item.getQuantity()), 10);
+        } else {
+            formatter.format("%-10d", item.getQuantity());
+        }
+        buffer.append(" $");
+        // Formatted like printf so rounding and the locale's decimal separator match exactly
+        formatter.format("%-9.2f", item.getPrice());
+        buffer.append(' ');
+        pad(truncateString(item.getSupplier(), 15), 15);
+        buffer.append(newline);
+        flushIfFull();
+    }
+
+    /**
+     * Renders the closing rule and the item count
+     * @param count The number of rendered items
+     * @throws IOException If writing fails
+     */
+    public void renderFooter(int count) throws IOException {
+        buffer.append(RULE).append(newline);
+        buffer.append("Total Items: ").append(count).append(newline);
+        flushIfFull();
+    }
+
+    /**
+     * Writes out everything buffered so far
+     * @throws IOException If writing fails
+     */
+    @Override
+    public void flush() throws IOException {
+        writeBuffer();
+        out.flush();
+    }
+
+    private void flushIfFull() throws IOException {
+        if (buffer.length() >= FLUSH_THRESHOLD) {
+            writeBuffer();
+        }
+    }
+
+    private void writeBuffer() throws IOException {
+        int length = buffer.length();
+        if (length == 0) {
+            return;
+        }
+        if (chunk.length < length) {
+            chunk = new char[length];
+        }
+        buffer.getChars(0, length, chunk, 0);
+        out.write(chunk, 0, length);
+        buffer.setLength(0);
+    }
+
+    // Left-justifies a value in a column, like %-<width>s
+    private void pad(String value, int width) {
+        buffer.append(value);
+        for (int i = value.length(); i < width; i++) {
+            buffer.append(' ');
+        }
+    }
+
+    /**
+     * Helper method to truncate strings for display formatting
+     * @param str The string to truncate
+     * @param maxLength The maximum length
+     * @return The truncated string
+     */
+    public static String truncateString(String str, int maxLength) {
+        if (str.length() <= maxLength) {
+            return str;
+        }
+        return str.substring(0, maxLength - 3) + "...";
+    }
+}
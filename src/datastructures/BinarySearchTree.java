@@ -1,17 +1,23 @@
 package src.datastructures;
 
-import src.InventoryItem;
 import java.io.Serializable;
 import java.util.Comparator;
 import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.function.ToIntFunction;
 
 /**
- * Binary Search Tree implementation for storing inventory items
- * Uses itemId as the key for ordering
+ * Self-balancing (red-black) Binary Search Tree for storing inventory items
+ * Items are ordered by the comparator, itemId for the inventory store.
+ * The depth stays O(log n) even for strictly increasing keys, and every
+ * operation is iterative so large trees cannot overflow the stack.
  */
 public class BinarySearchTree<T> implements Serializable {
     private static final long serialVersionUID = 1L;
 
+    private static final boolean RED = false;
+    private static final boolean BLACK = true;
+
     private Node root;
     private int size;
     private final Comparator<T> comparator;
@@ -20,11 +26,14 @@ public class BinarySearchTree<T> implements Serializable {
         T data;
         Node left;
         Node right;
+        Node parent;
+        boolean color = BLACK;
 
-        Node(T data) {
+        Node(T data, Node parent) {
             this.data = data;
             this.left = null;
             this.right = null;
+            this.parent = parent;
         }
     }
 
@@ -39,30 +48,41 @@ public class BinarySearchTree<T> implements Serializable {
     }
 
     /**
-     * Adds an item to the BST
+     * Adds an item to the BST, replacing an existing item with the same key
      * @param item The item to add
      */
     public void add(T item) {
-        root = addRecursive(root, item);
-        size++;
-    }
-
-    private Node addRecursive(Node current, T item) {
-        if (current == null) {
-            return new Node(item);
+        if (root == null) {
+            root = new Node(item, null);
+            size = 1;
+            return;
         }
 
-        int compareResult = comparator.compare(item, current.data);
+        Node current = root;
+        Node parent;
+        int compareResult;
+        do {
+            parent = current;
+            compareResult = comparator.compare(item, current.data);
+            if (compareResult < 0) {
+                current = current.left;
+            } else if (compareResult > 0) {
+                current = current.right;
+            } else {
+                // Update existing item
+                current.data = item;
+                return;
+            }
+        } while (current != null);
+
+        Node node = new Node(item, parent);
         if (compareResult < 0) {
-            current.left = addRecursive(current.left, item);
-        } else if (compareResult > 0) {
-            current.right = addRecursive(current.right, item);
+            parent.left = node;
         } else {
-            // Update existing item
-            current.data = item;
-            size--; // Adjust size since we're replacing
+            parent.right = node;
         }
-        return current;
+        fixAfterInsertion(node);
+        size++;
     }
 
     /**
@@ -71,83 +91,194 @@ public class BinarySearchTree<T> implements Serializable {
      * @return true if item was removed
      */
     public boolean remove(Object key) {
-        int initialSize = size;
-        root = removeRecursive(root, key);
-        return size < initialSize;
+        Node node = findNode(key);
+        if (node == null) {
+            return false;
+        }
+        deleteNode(node);
+        return true;
     }
 
-    private Node removeRecursive(Node current, Object key) {
-        if (current == null) {
-            return null;
+    /**
+     * Finds the item equal to a key under the comparator
+     * @param key An item with the key to search for, such as an InventoryItem
+     *            carrying only the itemId
+     * @return The item if found, null otherwise
+     */
+    public T find(Object key) {
+        Node node = findNode(key);
+        return node == null ? null : node.data;
+    }
+
+    /**
+     * Finds an item without building a key item, for example by ID:
+     * findBy(item -> Integer.compare(id, item.getItemId()))
+     * @param keyComparison Compares the wanted key with an item's, negative if
+     *                      the wanted key orders first; must agree with the comparator
+     * @return The item if found, null otherwise
+     */
+    public T findBy(ToIntFunction<? super T> keyComparison) {
+        Node current = root;
+        while (current != null) {
+            int compareResult = keyComparison.applyAsInt(current.data);
+            if (compareResult == 0) {
+                return current.data;
+            } else if (compareResult < 0) {
+                current = current.left;
+            } else {
+                current = current.right;
+            }
         }
+        return null;
+    }
 
-        InventoryItem item = (InventoryItem) current.data;
-        int compareResult = Integer.compare(((InventoryItem) key).getItemId(), item.getItemId());
-        if (compareResult < 0) {
-            current.left = removeRecursive(current.left, key);
-        } else if (compareResult > 0) {
-            current.right = removeRecursive(current.right, key);
-        } else {
-            size--;
-            if (current.left == null) {
-                return current.right;
-            } else if (current.right == null) {
-                return current.left;
+    @SuppressWarnings("unchecked")
+    private Node findNode(Object key) {
+        T target = (T) key;
+        Node current = root;
+        while (current != null) {
+            int compareResult = comparator.compare(target, current.data);
+            if (compareResult == 0) {
+                return current;
+            } else if (compareResult < 0) {
+                current = current.left;
             } else {
-                Node successor = findMin(current.right);
-                current.data = successor.data;
-                current.right = removeRecursive(current.right, successor.data);
+                current = current.right;
             }
         }
-        return current;
+        return null;
     }
 
-    private Node findMin(Node node) {
-        while (node.left != null) {
-            node = node.left;
+    /**
+     * Performs an in-order traversal, applying the consumer to each item
+     * @param consumer The consumer to process each item
+     */
+    public void inOrderTraversal(Consumer<T> consumer) {
+        for (Node node = firstNode(); node != null; node = successor(node)) {
+            consumer.accept(node.data);
         }
-        return node;
     }
 
     /**
-     * Finds an item by its key (itemId for InventoryItem)
-     * @param key The key to search for
-     * @return The item if found, null otherwise
+     * Visits items in order until the visitor returns false
+     * @param visitor Receives each item; returning false stops the traversal
      */
-    public T find(Object key) {
-        return findRecursive(root, key);
+    public void visitInOrder(Predicate<T> visitor) {
+        for (Node node = firstNode(); node != null && visitor.test(node.data); node = successor(node)) {
+            // The visitor does the work
+        }
     }
 
-    private T findRecursive(Node current, Object key) {
-        if (current == null) {
-            return null;
+    /**
+     * Visits items in order starting at a key, until the visitor returns false
+     * Only the path to the starting item is descended, so visiting k items
+     * costs O(log n + k).
+     * @param fromKey The key to start at
+     * @param inclusive Whether an item equal to fromKey is visited
+     * @param visitor Receives each item; returning false stops the traversal
+     */
+    public void visitFrom(Object fromKey, boolean inclusive, Predicate<T> visitor) {
+        for (Node node = ceilingNode(fromKey, inclusive);
+             node != null && visitor.test(node.data);
+             node = successor(node)) {
+            // The visitor does the work
         }
+    }
 
-        InventoryItem item = (InventoryItem) current.data;
-        int compareResult = Integer.compare(((InventoryItem) key).getItemId(), item.getItemId());
-        if (compareResult == 0) {
-            return current.data;
-        } else if (compareResult < 0) {
-            return findRecursive(current.left, key);
-        } else {
-            return findRecursive(current.right, key);
+    /**
+     * Visits the items between two keys, both inclusive, in order until the
+     * visitor returns false
+     * Only the path to the first item in the range is descended and the
+     * walk stops at the first item past it, so visiting k items costs
+     * O(log n + k) however large the tree is.
+     * @param lowKey The lowest key to visit
+     * @param highKey The highest key to visit
+     * @param visitor Receives each item; returning false stops the traversal
+     */
+    @SuppressWarnings("unchecked")
+    public void visitRange(Object lowKey, Object highKey, Predicate<T> visitor) {
+        T high = (T) highKey;
+        for (Node node = ceilingNode(lowKey, true);
+             node != null && comparator.compare(node.data, high) <= 0 && visitor.test(node.data);
+             node = successor(node)) {
+            // The visitor does the work
         }
     }
 
     /**
-     * Performs an in-order traversal, applying the consumer to each item
-     * @param consumer The consumer to process each item
+     * Finds the first node after the key, or at it if inclusive
      */
-    public void inOrderTraversal(Consumer<T> consumer) {
-        inOrderTraversalRecursive(root, consumer);
+    @SuppressWarnings("unchecked")
+    private Node ceilingNode(Object key, boolean inclusive) {
+        T target = (T) key;
+        Node ceiling = null;
+        Node current = root;
+        while (current != null) {
+            int compareResult = comparator.compare(target, current.data);
+            if (compareResult < 0 || (compareResult == 0 && inclusive)) {
+                ceiling = current;
+                if (compareResult == 0) {
+                    break;
+                }
+                current = current.left;
+            } else {
+                current = current.right;
+            }
+        }
+        return ceiling;
     }
 
-    private void inOrderTraversalRecursive(Node current, Consumer<T> consumer) {
-        if (current != null) {
-            inOrderTraversalRecursive(current.left, consumer);
-            consumer.accept(current.data);
-            inOrderTraversalRecursive(current.right, consumer);
+    /**
+     * Replaces the contents with items that are already sorted, in O(n)
+     * The tree is built perfectly balanced; only the nodes on the deepest,
+     * partially filled level are red, which satisfies the red-black rules.
+     * @param sorted Items in strictly increasing key order
+     * @throws IllegalArgumentException If the items are not strictly increasing
+     */
+    public void buildFromSorted(CustomArrayList<T> sorted) {
+        for (int i = 1; i < sorted.size(); i++) {
+            if (comparator.compare(sorted.get(i - 1), sorted.get(i)) >= 0) {
+                throw new IllegalArgumentException("Items are not in strictly increasing order at index " + i);
+            }
+        }
+
+        int redLevel = 0;
+        for (int m = sorted.size() - 1; m >= 0; m = m / 2 - 1) {
+            redLevel++;
         }
+        root = buildFromSorted(sorted, 0, sorted.size() - 1, 0, redLevel, null);
+        size = sorted.size();
+    }
+
+    // Recursion depth is only log2(n), so this cannot overflow the stack
+    private Node buildFromSorted(CustomArrayList<T> sorted, int low, int high, int level, int redLevel, Node parent) {
+        if (low > high) {
+            return null;
+        }
+
+        int mid = (low + high) >>> 1;
+        Node node = new Node(sorted.get(mid), parent);
+        if (level == redLevel) {
+            node.color = RED;
+        }
+        node.left = buildFromSorted(sorted, low, mid - 1, level + 1, redLevel, node);
+        node.right = buildFromSorted(sorted, mid + 1, high, level + 1, redLevel, node);
+        return node;
+    }
+
+    /**
+     * Returns the item with the highest key
+     * @return The last item in order, or null if the BST is empty
+     */
+    public T last() {
+        Node node = root;
+        if (node == null) {
+            return null;
+        }
+        while (node.right != null) {
+            node = node.right;
+        }
+        return node.data;
     }
 
     /**
@@ -158,6 +289,22 @@ public class BinarySearchTree<T> implements Serializable {
         return size;
     }
 
+    /**
+     * Returns the number of nodes on the longest path from the root, in O(n)
+     * @return The height, 0 if the BST is empty
+     */
+    public int height() {
+        return height(root);
+    }
+
+    // Red-black balance bounds the recursion depth to 2 log2(n)
+    private int height(Node node) {
+        if (node == null) {
+            return 0;
+        }
+        return 1 + Math.max(height(node.left), height(node.right));
+    }
+
     /**
      * Checks if the BST is empty
      * @return true if empty
@@ -173,4 +320,240 @@ public class BinarySearchTree<T> implements Serializable {
         root = null;
         size = 0;
     }
+
+    private Node firstNode() {
+        Node node = root;
+        if (node != null) {
+            while (node.left != null) {
+                node = node.left;
+            }
+        }
+        return node;
+    }
+
+    private Node successor(Node node) {
+        if (node.right != null) {
+            Node next = node.right;
+            while (next.left != null) {
+                next = next.left;
+            }
+            return next;
+        }
+
+        Node child = node;
+        Node parent = node.parent;
+        while (parent != null && child == parent.right) {
+            child = parent;
+            parent = parent.parent;
+        }
+        return parent;
+    }
+
+    private void deleteNode(Node node) {
+        size--;
+
+        // A node with two children swaps its data with its successor, which has at most one child
+        if (node.left != null && node.right != null) {
+            Node next = successor(node);
+            node.data = next.data;
+            node = next;
+        }
+
+        Node replacement = node.left != null ? node.left : node.right;
+        if (replacement != null) {
+            replacement.parent = node.parent;
+            if (node.parent == null) {
+                root = replacement;
+            } else if (node == node.parent.left) {
+                node.parent.left = replacement;
+            } else {
+                node.parent.right = replacement;
+            }
+            node.left = node.right = node.parent = null;
+
+            if (node.color == BLACK) {
+                fixAfterDeletion(replacement);
+            }
+        } else if (node.parent == null) {
+            root = null;
+        } else {
+            // No children: use the node itself as the phantom replacement, then unlink it
+            if (node.color == BLACK) {
+                fixAfterDeletion(node);
+            }
+            if (node.parent != null) {
+                if (node == node.parent.left) {
+                    node.parent.left = null;
+                } else if (node == node.parent.right) {
+                    node.parent.right = null;
+                }
+                node.parent = null;
+            }
+        }
+    }
+
+    private void fixAfterInsertion(Node node) {
+        node.color = RED;
+
+        while (node != null && node != root && node.parent.color == RED) {
+            if (parentOf(node) == leftOf(parentOf(parentOf(node)))) {
+                Node uncle = rightOf(parentOf(parentOf(node)));
+                if (colorOf(uncle) == RED) {
+                    setColor(parentOf(node), BLACK);
+                    setColor(uncle, BLACK);
+                    setColor(parentOf(parentOf(node)), RED);
+                    node = parentOf(parentOf(node));
+                } else {
+                    if (node == rightOf(parentOf(node))) {
+                        node = parentOf(node);
+                        rotateLeft(node);
+                    }
+                    setColor(parentOf(node), BLACK);
+                    setColor(parentOf(parentOf(node)), RED);
+                    rotateRight(parentOf(parentOf(node)));
+                }
+            } else {
+                Node uncle = leftOf(parentOf(parentOf(node)));
+                if (colorOf(uncle) == RED) {
+                    setColor(parentOf(node), BLACK);
+                    setColor(uncle, BLACK);
+                    setColor(parentOf(parentOf(node)), RED);
+                    node = parentOf(parentOf(node));
+                } else {
+                    if (node == leftOf(parentOf(node))) {
+                        node = parentOf(node);
+                        rotateRight(node);
+                    }
+                    setColor(parentOf(node), BLACK);
+                    setColor(parentOf(parentOf(node)), RED);
+                    rotateLeft(parentOf(parentOf(node)));
+                }
+            }
+        }
+        root.color = BLACK;
+    }
+
+    private void fixAfterDeletion(Node node) {
+        while (node != root && colorOf(node) == BLACK) {
+            if (node == leftOf(parentOf(node))) {
+                Node sibling = rightOf(parentOf(node));
+
+                if (colorOf(sibling) == RED) {
+                    setColor(sibling, BLACK);
+                    setColor(parentOf(node), RED);
+                    rotateLeft(parentOf(node));
+                    sibling = rightOf(parentOf(node));
+                }
+
+                if (colorOf(leftOf(sibling)) == BLACK && colorOf(rightOf(sibling)) == BLACK) {
+                    setColor(sibling, RED);
+                    node = parentOf(node);
+                } else {
+                    if (colorOf(rightOf(sibling)) == BLACK) {
+                        setColor(leftOf(sibling), BLACK);
+                        setColor(sibling, RED);
+                        rotateRight(sibling);
+                        sibling = rightOf(parentOf(node));
+                    }
+                    setColor(sibling, colorOf(parentOf(node)));
+                    setColor(parentOf(node), BLACK);
+                    setColor(rightOf(sibling), BLACK);
+                    rotateLeft(parentOf(node));
+                    node = root;
+                }
+            } else {
+                Node sibling = leftOf(parentOf(node));
+
+                if (colorOf(sibling) == RED) {
+                    setColor(sibling, BLACK);
+                    setColor(parentOf(node), RED);
+                    rotateRight(parentOf(node));
+                    sibling = leftOf(parentOf(node));
+                }
+
+                if (colorOf(rightOf(sibling)) == BLACK && colorOf(leftOf(sibling)) == BLACK) {
+                    setColor(sibling, RED);
+                    node = parentOf(node);
+                } else {
+                    if (colorOf(leftOf(sibling)) == BLACK) {
+                        setColor(rightOf(sibling), BLACK);
+                        setColor(sibling, RED);
+                        rotateLeft(sibling);
+                        sibling = leftOf(parentOf(node));
+                    }
+                    setColor(sibling, colorOf(parentOf(node)));
+                    setColor(parentOf(node), BLACK);
+                    setColor(leftOf(sibling), BLACK);
+                    rotateRight(parentOf(node));
+                    node = root;
+                }
+            }
+        }
+        setColor(node, BLACK);
+    }
+
+    private void rotateLeft(Node node) {
+        if (node == null) {
+            return;
+        }
+        Node pivot = node.right;
+        node.right = pivot.left;
+        if (pivot.left != null) {
+            pivot.left.parent = node;
+        }
+        pivot.parent = node.parent;
+        if (node.parent == null) {
+            root = pivot;
+        } else if (node.parent.left == node) {
+            node.parent.left = pivot;
+        } else {
+            node.parent.right = pivot;
+        }
+        pivot.left = node;
+        node.parent = pivot;
+    }
+
+    private void rotateRight(Node node) {
+        if (node == null) {
+            return;
+        }
+        Node pivot = node.left;
+        node.left = pivot.right;
+        if (pivot.right != null) {
+            pivot.right.parent = node;
+        }
+        pivot.parent = node.parent;
+        if (node.parent == null) {
+            root = pivot;
+        } else if (node.parent.right == node) {
+            node.parent.right = pivot;
+        } else {
+            node.parent.left = pivot;
+        }
+        pivot.right = node;
+        node.parent = pivot;
+    }
+
+    // Null-safe helpers: missing children count as black leaves
+    private boolean colorOf(Node node) {
+        return node == null ? BLACK : node.color;
+    }
+
+    private Node parentOf(Node node) {
+        return node == null ? null : node.parent;
+    }
+
+    private void setColor(Node node, boolean color) {
+        if (node != null) {
+            node.color = color;
+        }
+    }
+
+    private Node leftOf(Node node) {
+        return node == null ? null : node.left;
+    }
+
+    private Node rightOf(Node node) {
+        return node == null ? null : node.right;
+    }
 }
@@ -0,0 +1,118 @@
+package src.datastructures;
+
+import java.util.Comparator;
+
+/**
+ * Keeps the k smallest elements offered to it
+ * Backed by a binary max-heap of at most k elements, so selecting the top k
+ * of n elements takes O(n log k) time and O(k) memory instead of a full sort.
+ */
+public class BoundedHeap<T> {
+
+    private final Object[] heap;
+    private final Comparator<T> comparator;
+    private int size;
+
+    /**
+     * Constructor with the number of elements to keep
+     * @param capacity The number of smallest elements to keep
+     * @param comparator Comparator defining "smallest"
+     */
+    public BoundedHeap(int capacity, Comparator<T> comparator) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("Illegal Capacity: " + capacity);
+        }
+        this.heap = new Object[capacity];
+        this.comparator = comparator;
+        this.size = 0;
+    }
+
+    /**
+     * Offers an element, keeping it only if it is among the k smallest so far
+     * @param element The element to offer
+     * @return true if the element was kept
+     */
+    public boolean offer(T element) {
+        if (size < heap.length) {
+            heap[size] = element;
+            siftUp(size++);
+            return true;
+        }
+        if (size == 0 || compare(element, heap[0]) >= 0) {
+            return false;
+        }
+
+        // Replace the largest kept element
+        heap[0] = element;
+        siftDown(0);
+        return true;
+    }
+
+    /**
+     * Removes the kept elements and returns them in ascending order
+     * @return The kept elements, smallest first
+     */
+    @SuppressWarnings("unchecked")
+    public CustomArrayList<T> drainSorted() {
+        Object[] sorted = new Object[size];
+        for (int i = size - 1; i >= 0; i--) {
+            sorted[i] = heap[0];
+            heap[0] = heap[--size];
+            heap[size] = null;
+            siftDown(0);
+        }
+
+        CustomArrayList<T> result = new CustomArrayList<>(sorted.length);
+        for (Object element : sorted) {
+            result.add((T) element);
+        }
+        return result;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    private void siftUp(int index) {
+        Object element = heap[index];
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (compare(element, heap[parent]) <= 0) {
+                break;
+            }
+            heap[index] = heap[parent];
+            index = parent;
+        }
+        heap[index] = element;
+    }
+
+    private void siftDown(int index) {
+        if (size == 0) {
+            return;
+        }
+        Object element = heap[index];
+        int half = size >>> 1;
+        while (index < half) {
+            int child = 2 * index + 1;
+            int right = child + 1;
+            if (right < size && compare(heap[right], heap[child]) > 0) {
+                child = right;
+            }
+            if (compare(element, heap[child]) >= 0) {
+                break;
+            }
+            heap[index] = heap[child];
+            index = child;
+        }
+        heap[index] = element;
+    }
+
+    @SuppressWarnings("unchecked")
+    private int compare(Object a, Object b) {
+        return comparator.compare((T) a, (T) b);
+    }
+}
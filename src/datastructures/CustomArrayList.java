@@ -105,6 +105,14 @@ public class CustomArrayList<T> implements Serializable {
         return -1;
     }
 
+    /**
+     * Exposes the backing array to the sorting routines in this package
+     * Only the first size() slots hold elements.
+     */
+    Object[] backingArray() {
+        return elements;
+    }
+
     private void ensureCapacity(int minCapacity) {
         if (minCapacity > elements.length) {
             int newCapacity = Math.max(elements.length * 2, minCapacity);
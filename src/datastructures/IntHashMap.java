@@ -0,0 +1,176 @@
+package src.datastructures;
+
+import java.io.Serializable;
+
+/**
+ * Open-addressing hash map from primitive int keys to values
+ * Keys live in an int[] next to the values, so lookups never box the key
+ * or allocate. Collisions use linear probing, and removal shifts later
+ * entries back instead of leaving tombstones. Null values are not allowed.
+ */
+public class IntHashMap<V> implements Serializable {
+    private static final long serialVersionUID = 1L;
+    private static final int DEFAULT_CAPACITY = 16;
+    private static final float LOAD_FACTOR = 0.6f;
+
+    private int[] keys;
+    private Object[] values;
+    private int size;
+    private int mask;
+    private int resizeThreshold;
+
+    public IntHashMap() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public IntHashMap(int expectedSize) {
+        if (expectedSize < 0) {
+            throw new IllegalArgumentException("Illegal Capacity: " + expectedSize);
+        }
+        allocate(tableSizeFor(expectedSize));
+    }
+
+    /**
+     * Returns the value for a key
+     * @param key The key to look up
+     * @return The value, or null if the key is absent
+     */
+    @SuppressWarnings("unchecked")
+    public V get(int key) {
+        int slot = slotOf(key);
+        while (values[slot] != null) {
+            if (keys[slot] == key) {
+                return (V) values[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+        return null;
+    }
+
+    /**
+     * Associates a value with a key, replacing any previous value
+     * @param key The key
+     * @param value The value, not null
+     * @return The previous value, or null if the key was absent
+     */
+    @SuppressWarnings("unchecked")
+    public V put(int key, V value) {
+        if (value == null) {
+            throw new NullPointerException("Null values are not supported");
+        }
+
+        int slot = slotOf(key);
+        while (values[slot] != null) {
+            if (keys[slot] == key) {
+                V previous = (V) values[slot];
+                values[slot] = value;
+                return previous;
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        keys[slot] = key;
+        values[slot] = value;
+        if (++size > resizeThreshold) {
+            resize(keys.length * 2);
+        }
+        return null;
+    }
+
+    /**
+     * Removes a key
+     * @param key The key to remove
+     * @return The removed value, or null if the key was absent
+     */
+    @SuppressWarnings("unchecked")
+    public V remove(int key) {
+        int slot = slotOf(key);
+        while (values[slot] != null) {
+            if (keys[slot] == key) {
+                V removed = (V) values[slot];
+                shiftBack(slot);
+                size--;
+                return removed;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return null;
+    }
+
+    public boolean containsKey(int key) {
+        return get(key) != null;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        for (int i = 0; i < values.length; i++) {
+            values[i] = null;
+        }
+        size = 0;
+    }
+
+    /**
+     * Closes the gap left at a slot by moving back every later entry of the
+     * same probe run whose home slot does not lie between the gap and it
+     */
+    private void shiftBack(int gap) {
+        int slot = gap;
+        while (true) {
+            slot = (slot + 1) & mask;
+            if (values[slot] == null) {
+                break;
+            }
+            int home = slotOf(keys[slot]);
+            // Distance from home must be at least the distance from the gap for the entry to move
+            if (((slot - home) & mask) >= ((slot - gap) & mask)) {
+                keys[gap] = keys[slot];
+                values[gap] = values[slot];
+                gap = slot;
+            }
+        }
+        values[gap] = null;
+    }
+
+    private int slotOf(int key) {
+        int hash = key * 0x9E3779B9; // Fibonacci hashing spreads sequential IDs
+        return (hash ^ (hash >>> 16)) & mask;
+    }
+
+    private void resize(int newCapacity) {
+        int[] oldKeys = keys;
+        Object[] oldValues = values;
+        allocate(newCapacity);
+        for (int i = 0; i < oldValues.length; i++) {
+            if (oldValues[i] != null) {
+                int slot = slotOf(oldKeys[i]);
+                while (values[slot] != null) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new int[capacity];
+        values = new Object[capacity];
+        mask = capacity - 1;
+        resizeThreshold = (int) (capacity * LOAD_FACTOR);
+    }
+
+    private static int tableSizeFor(int expectedSize) {
+        int capacity = DEFAULT_CAPACITY;
+        while (capacity * LOAD_FACTOR < expectedSize) {
+            capacity <<= 1;
+        }
+        return capacity;
+    }
+}
@@ -1,6 +1,10 @@
 package src.datastructures;
 
 import java.util.Comparator;
+import java.util.HashMap;
+import java.util.function.Function;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 /**
  * Custom sorting algorithms implementation
@@ -8,6 +12,15 @@ import java.util.Comparator;
  */
 public class SortingAlgorithms {
 
+    // Ranges at or below this size are sorted or merged on a single thread
+    private static final int PARALLEL_CUTOFF = 8192;
+
+    // Ranges at or below this size are insertion sorted
+    private static final int INSERTION_SORT_CUTOFF = 32;
+
+    // Natural runs shorter than this are extended with binary insertion sort
+    private static final int MIN_RUN = 32;
+
     /**
      * Merge sort implementation for CustomArrayList
      * @param list The list to sort
@@ -17,61 +30,435 @@ public class SortingAlgorithms {
         if (list.size() <= 1) {
             return;
         }
-        
+
         // Create temporary array for merging
         Object[] temp = new Object[list.size()];
-        
-        // Call the recursive merge sort
-        mergeSort(list, 0, list.size() - 1, temp, comparator);
-    }
-    
-    private static <T> void mergeSort(CustomArrayList<T> list, int low, int high, Object[] temp, Comparator<T> comparator) {
-        if (low < high) {
-            int mid = low + (high - low) / 2;
-            
-            // Sort first and second halves
-            mergeSort(list, low, mid, temp, comparator);
-            mergeSort(list, mid + 1, high, temp, comparator);
-            
-            // Merge the sorted halves
-            merge(list, low, mid, high, temp, comparator);
-        }
-    }
-    
-    private static <T> void merge(CustomArrayList<T> list, int low, int mid, int high, Object[] temp, Comparator<T> comparator) {
-        // Copy data to temp arrays
-        for (int i = low; i <= high; i++) {
-            temp[i] = list.get(i);
-        }
-        
-        int i = low;      // Initial index of first subarray
-        int j = mid + 1;  // Initial index of second subarray
-        int k = low;      // Initial index of merged subarray
-        
-        // Merge the temp arrays back into list
-        while (i <= mid && j <= high) {
-            if (comparator.compare((T)temp[i], (T)temp[j]) <= 0) {
-                list.set(k, (T)temp[i]);
-                i++;
+
+        // Sort the backing array directly, without per-access bounds checks
+        mergeSort(list.backingArray(), 0, list.size(), temp, comparator);
+    }
+
+    /**
+     * Parallel merge sort for CustomArrayList using the common ForkJoinPool
+     * Halves are sorted and merged as separate tasks down to a sequential
+     * cutoff. The sort is stable, like mergeSort.
+     * @param list The list to sort
+     * @param comparator The comparator to use for comparison
+     */
+    public static <T> void parallelMergeSort(CustomArrayList<T> list, Comparator<T> comparator) {
+        int size = list.size();
+        if (size <= PARALLEL_CUTOFF) {
+            mergeSort(list, comparator);
+            return;
+        }
+
+        Object[] temp = new Object[size];
+        ForkJoinPool.commonPool().invoke(new SortTask<>(list.backingArray(), temp, 0, size, comparator));
+    }
+
+    /**
+     * Adaptive merge sort that detects existing runs, in the spirit of TimSort
+     * Ascending runs are kept, strictly descending runs are reversed, short
+     * runs are extended by binary insertion sort, and neighbouring runs that
+     * are already in order are not merged. Nearly sorted input therefore
+     * sorts in close to linear time. The sort is stable.
+     * @param list The list to sort
+     * @param comparator The comparator to use for comparison
+     */
+    public static <T> void adaptiveSort(CustomArrayList<T> list, Comparator<T> comparator) {
+        adaptiveSort(list.backingArray(), null, list.size(), comparator);
+    }
+
+    /**
+     * Adaptive sort on precomputed int keys, e.g. dictionary-encoded category ordinals
+     * Elements are ordered by key first, so most comparisons are int compares;
+     * the tie-breaker only runs for equal keys. keys[i] belongs to the element
+     * at index i and is permuted together with the list.
+     * @param list The list to sort
+     * @param keys The primary sort key of each element, at least list.size() long
+     * @param tieBreaker Orders elements with equal keys, or null to keep their order
+     */
+    public static <T> void adaptiveSort(CustomArrayList<T> list, int[] keys, Comparator<T> tieBreaker) {
+        if (keys.length < list.size()) {
+            throw new IllegalArgumentException("Keys: " + keys.length + ", Size: " + list.size());
+        }
+        adaptiveSort(list.backingArray(), keys, list.size(), tieBreaker);
+    }
+
+    /**
+     * Dictionary-encodes an attribute of every element
+     * Distinct values are sorted once and replaced by their rank, so
+     * comparing two ordinals gives the same result as comparing the values.
+     * @param list The elements to encode
+     * @param attribute Returns the attribute to encode
+     * @return The ordinal of each element's attribute, in list order
+     */
+    public static <T, K extends Comparable<K>> int[] encodeKeys(CustomArrayList<T> list, Function<T, K> attribute) {
+        HashMap<K, Integer> dictionary = new HashMap<>();
+        CustomArrayList<K> distinct = new CustomArrayList<>();
+        for (int i = 0; i < list.size(); i++) {
+            K value = attribute.apply(list.get(i));
+            if (!dictionary.containsKey(value)) {
+                dictionary.put(value, 0);
+                distinct.add(value);
+            }
+        }
+
+        mergeSort(distinct, Comparator.naturalOrder());
+        for (int i = 0; i < distinct.size(); i++) {
+            dictionary.put(distinct.get(i), i);
+        }
+
+        int[] keys = new int[list.size()];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = dictionary.get(attribute.apply(list.get(i)));
+        }
+        return keys;
+    }
+
+    private static <T> void adaptiveSort(Object[] elements, int[] keys, int size, Comparator<T> comparator) {
+        if (size <= 1) {
+            return;
+        }
+
+        // Find the natural runs, extending short ones to MIN_RUN
+        int[] runStarts = new int[size / MIN_RUN + 2];
+        int runCount = 0;
+        int low = 0;
+        while (low < size) {
+            int high = countRun(elements, keys, low, size, comparator);
+            if (high - low < MIN_RUN) {
+                int forcedHigh = Math.min(low + MIN_RUN, size);
+                binaryInsertionSort(elements, keys, low, high, forcedHigh, comparator);
+                high = forcedHigh;
+            }
+            if (runCount == runStarts.length) {
+                int[] grown = new int[runStarts.length * 2];
+                System.arraycopy(runStarts, 0, grown, 0, runCount);
+                runStarts = grown;
+            }
+            runStarts[runCount++] = low;
+            low = high;
+        }
+
+        // Merge neighbouring runs pairwise until one run is left
+        Object[] tempElements = new Object[size];
+        int[] tempKeys = keys == null ? null : new int[size];
+        while (runCount > 1) {
+            int merged = 0;
+            for (int i = 0; i < runCount; i += 2) {
+                int start = runStarts[i];
+                if (i + 1 < runCount) {
+                    int mid = runStarts[i + 1];
+                    int end = i + 2 < runCount ? runStarts[i + 2] : size;
+                    mergeRuns(elements, keys, start, mid, end, tempElements, tempKeys, comparator);
+                }
+                runStarts[merged++] = start;
+            }
+            runCount = merged;
+        }
+    }
+
+    /**
+     * Returns the end of the run starting at low, reversing it first if it
+     * is strictly descending (strictness keeps the sort stable)
+     */
+    private static <T> int countRun(Object[] elements, int[] keys, int low, int size, Comparator<T> comparator) {
+        int high = low + 1;
+        if (high == size) {
+            return high;
+        }
+
+        if (compare(elements, keys, high, high - 1, comparator) < 0) {
+            while (high < size && compare(elements, keys, high, high - 1, comparator) < 0) {
+                high++;
+            }
+            reverse(elements, keys, low, high);
+        } else {
+            while (high < size && compare(elements, keys, high, high - 1, comparator) >= 0) {
+                high++;
+            }
+        }
+        return high;
+    }
+
+    private static void reverse(Object[] elements, int[] keys, int low, int high) {
+        for (int i = low, j = high - 1; i < j; i++, j--) {
+            Object element = elements[i];
+            elements[i] = elements[j];
+            elements[j] = element;
+            if (keys != null) {
+                int key = keys[i];
+                keys[i] = keys[j];
+                keys[j] = key;
+            }
+        }
+    }
+
+    // Inserts elements[sorted, high) into the sorted prefix elements[low, sorted)
+    private static <T> void binaryInsertionSort(Object[] elements, int[] keys, int low, int sorted, int high,
+                                                Comparator<T> comparator) {
+        for (int i = sorted; i < high; i++) {
+            Object element = elements[i];
+            int key = keys == null ? 0 : keys[i];
+
+            // Insert after every equal element to stay stable
+            int left = low;
+            int right = i;
+            while (left < right) {
+                int mid = (left + right) >>> 1;
+                if (compare(element, key, elements[mid], keys == null ? 0 : keys[mid], keys != null, comparator) < 0) {
+                    right = mid;
+                } else {
+                    left = mid + 1;
+                }
+            }
+
+            System.arraycopy(elements, left, elements, left + 1, i - left);
+            elements[left] = element;
+            if (keys != null) {
+                System.arraycopy(keys, left, keys, left + 1, i - left);
+                keys[left] = key;
+            }
+        }
+    }
+
+    // Stable merge of the adjacent runs [low, mid) and [mid, high)
+    private static <T> void mergeRuns(Object[] elements, int[] keys, int low, int mid, int high,
+                                      Object[] tempElements, int[] tempKeys, Comparator<T> comparator) {
+        if (compare(elements, keys, mid - 1, mid, comparator) <= 0) {
+            return; // Runs are already in order
+        }
+
+        // Copy the left run out and merge forward into its place
+        int leftLength = mid - low;
+        System.arraycopy(elements, low, tempElements, 0, leftLength);
+        if (keys != null) {
+            System.arraycopy(keys, low, tempKeys, 0, leftLength);
+        }
+
+        int i = 0;
+        int j = mid;
+        int k = low;
+        while (i < leftLength && j < high) {
+            boolean takeLeft = compare(tempElements[i], keys == null ? 0 : tempKeys[i],
+                    elements[j], keys == null ? 0 : keys[j], keys != null, comparator) <= 0;
+            if (takeLeft) {
+                if (keys != null) {
+                    keys[k] = tempKeys[i];
+                }
+                elements[k++] = tempElements[i++];
             } else {
-                list.set(k, (T)temp[j]);
-                j++;
-            }
-            k++;
-        }
-        
-        // Copy the remaining elements of left subarray, if any
-        while (i <= mid) {
-            list.set(k, (T)temp[i]);
-            i++;
-            k++;
-        }
-        
-        // Copy the remaining elements of right subarray, if any
-        while (j <= high) {
-            list.set(k, (T)temp[j]);
-            j++;
-            k++;
+                if (keys != null) {
+                    keys[k] = keys[j];
+                }
+                elements[k++] = elements[j++];
+            }
+        }
+
+        // Anything left in the right run is already in place
+        if (i < leftLength) {
+            System.arraycopy(tempElements, i, elements, k, leftLength - i);
+            if (keys != null) {
+                System.arraycopy(tempKeys, i, keys, k, leftLength - i);
+            }
+        }
+    }
+
+    private static <T> int compare(Object[] elements, int[] keys, int i, int j, Comparator<T> comparator) {
+        return compare(elements[i], keys == null ? 0 : keys[i], elements[j], keys == null ? 0 : keys[j],
+                keys != null, comparator);
+    }
+
+    // Compares by key when keys are used, falling back to the comparator on ties
+    private static <T> int compare(Object a, int keyA, Object b, int keyB, boolean useKeys, Comparator<T> comparator) {
+        if (useKeys && keyA != keyB) {
+            return keyA < keyB ? -1 : 1;
+        }
+        return comparator == null ? 0 : compare(comparator, a, b);
+    }
+
+    // Sorts elements[low, high) in place
+    private static <T> void mergeSort(Object[] elements, int low, int high, Object[] temp, Comparator<T> comparator) {
+        if (high - low <= INSERTION_SORT_CUTOFF) {
+            insertionSort(elements, low, high, comparator);
+            return;
+        }
+
+        int mid = (low + high) >>> 1;
+
+        // Sort first and second halves
+        mergeSort(elements, low, mid, temp, comparator);
+        mergeSort(elements, mid, high, temp, comparator);
+
+        // Already in order, nothing to merge
+        if (compare(comparator, elements[mid - 1], elements[mid]) <= 0) {
+            return;
+        }
+
+        // Merge the sorted halves
+        System.arraycopy(elements, low, temp, low, high - low);
+        merge(temp, low, mid, mid, high, elements, low, comparator);
+    }
+
+    // Stable merge of source[low1, high1) and source[low2, high2) into target starting at index
+    private static <T> void merge(Object[] source, int low1, int high1, int low2, int high2,
+                                  Object[] target, int index, Comparator<T> comparator) {
+        int i = low1;
+        int j = low2;
+        int k = index;
+
+        while (i < high1 && j < high2) {
+            if (compare(comparator, source[i], source[j]) <= 0) {
+                target[k++] = source[i++];
+            } else {
+                target[k++] = source[j++];
+            }
+        }
+
+        // Copy the remaining elements of whichever run is left
+        if (i < high1) {
+            System.arraycopy(source, i, target, k, high1 - i);
+        } else if (j < high2) {
+            System.arraycopy(source, j, target, k, high2 - j);
+        }
+    }
+
+    private static <T> void insertionSort(Object[] elements, int low, int high, Comparator<T> comparator) {
+        for (int i = low + 1; i < high; i++) {
+            Object current = elements[i];
+            int j = i - 1;
+            while (j >= low && compare(comparator, elements[j], current) > 0) {
+                elements[j + 1] = elements[j];
+                j--;
+            }
+            elements[j + 1] = current;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> int compare(Comparator<T> comparator, Object a, Object b) {
+        return comparator.compare((T) a, (T) b);
+    }
+
+    /**
+     * Sorts elements[low, high) in place by sorting both halves in parallel
+     * and merging them through temp
+     */
+    private static class SortTask<T> extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final Object[] elements;
+        private final Object[] temp;
+        private final int low;
+        private final int high;
+        private final Comparator<T> comparator;
+
+        SortTask(Object[] elements, Object[] temp, int low, int high, Comparator<T> comparator) {
+            this.elements = elements;
+            this.temp = temp;
+            this.low = low;
+            this.high = high;
+            this.comparator = comparator;
+        }
+
+        @Override
+        protected void compute() {
+            if (high - low <= PARALLEL_CUTOFF) {
+                mergeSort(elements, low, high, temp, comparator);
+                return;
+            }
+
+            int mid = (low + high) >>> 1;
+            invokeAll(new SortTask<>(elements, temp, low, mid, comparator),
+                    new SortTask<>(elements, temp, mid, high, comparator));
+
+            if (compare(comparator, elements[mid - 1], elements[mid]) <= 0) {
+                return;
+            }
+            System.arraycopy(elements, low, temp, low, high - low);
+            new MergeTask<>(temp, low, mid, mid, high, elements, low, comparator).compute();
+        }
+    }
+
+    /**
+     * Stable parallel merge: splits the larger run at its middle, finds the
+     * matching split point in the other run by binary search, and merges the
+     * two halves independently
+     */
+    private static class MergeTask<T> extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final Object[] source;
+        private final int low1;
+        private final int high1;
+        private final int low2;
+        private final int high2;
+        private final Object[] target;
+        private final int index;
+        private final Comparator<T> comparator;
+
+        MergeTask(Object[] source, int low1, int high1, int low2, int high2,
+                  Object[] target, int index, Comparator<T> comparator) {
+            this.source = source;
+            this.low1 = low1;
+            this.high1 = high1;
+            this.low2 = low2;
+            this.high2 = high2;
+            this.target = target;
+            this.index = index;
+            this.comparator = comparator;
+        }
+
+        @Override
+        protected void compute() {
+            int length1 = high1 - low1;
+            int length2 = high2 - low2;
+            if (length1 + length2 <= PARALLEL_CUTOFF) {
+                merge(source, low1, high1, low2, high2, target, index, comparator);
+                return;
+            }
+
+            int split1;
+            int split2;
+            if (length1 >= length2) {
+                // Left-run elements equal to the pivot stay ahead of equal right-run elements
+                split1 = (low1 + high1) >>> 1;
+                split2 = lowerBound(source, low2, high2, source[split1]);
+            } else {
+                split2 = (low2 + high2) >>> 1;
+                split1 = upperBound(source, low1, high1, source[split2]);
+            }
+
+            int splitIndex = index + (split1 - low1) + (split2 - low2);
+            invokeAll(new MergeTask<>(source, low1, split1, low2, split2, target, index, comparator),
+                    new MergeTask<>(source, split1, high1, split2, high2, target, splitIndex, comparator));
+        }
+
+        // First position in [low, high) whose element is not less than key
+        private int lowerBound(Object[] elements, int low, int high, Object key) {
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (compare(comparator, elements[mid], key) < 0) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+
+        // First position in [low, high) whose element is greater than key
+        private int upperBound(Object[] elements, int low, int high, Object key) {
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (compare(comparator, elements[mid], key) <= 0) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
         }
     }
 }
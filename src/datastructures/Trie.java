@@ -0,0 +1,210 @@
+package src.datastructures;
+
+import java.util.LinkedHashSet;
+import java.util.function.Predicate;
+
+/**
+ * Compact prefix tree mapping string keys to values
+ * Children are kept in small sorted char arrays instead of per-node maps,
+ * so a node costs two arrays and lookups binary-search at most a few
+ * entries. A key may hold several distinct values; they are kept in a
+ * hash set, since a common word can be shared by most of the items.
+ */
+public class Trie<V> {
+
+    private static final char[] NO_KEYS = new char[0];
+
+    private final Node root = new Node();
+    private int size;
+
+    private class Node {
+        char[] keys = NO_KEYS;
+        Object[] children;
+        LinkedHashSet<V> values;
+
+        @SuppressWarnings("unchecked")
+        Node child(char c) {
+            int index = indexOf(c);
+            return index >= 0 ? (Node) children[index] : null;
+        }
+
+        int indexOf(char c) {
+            int low = 0;
+            int high = keys.length - 1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                if (keys[mid] < c) {
+                    low = mid + 1;
+                } else if (keys[mid] > c) {
+                    high = mid - 1;
+                } else {
+                    return mid;
+                }
+            }
+            return -(low + 1);
+        }
+
+        Node addChild(char c) {
+            int index = indexOf(c);
+            if (index >= 0) {
+                return child(c);
+            }
+
+            int insertAt = -(index + 1);
+            char[] newKeys = new char[keys.length + 1];
+            Object[] newChildren = new Object[keys.length + 1];
+            System.arraycopy(keys, 0, newKeys, 0, insertAt);
+            System.arraycopy(keys, insertAt, newKeys, insertAt + 1, keys.length - insertAt);
+            if (children != null) {
+                System.arraycopy(children, 0, newChildren, 0, insertAt);
+                System.arraycopy(children, insertAt, newChildren, insertAt + 1, keys.length - insertAt);
+            }
+            Node node = new Node();
+            newKeys[insertAt] = c;
+            newChildren[insertAt] = node;
+            keys = newKeys;
+            children = newChildren;
+            return node;
+        }
+
+        void removeChild(char c) {
+            int index = indexOf(c);
+            if (index < 0) {
+                return;
+            }
+            if (keys.length == 1) {
+                keys = NO_KEYS;
+                children = null;
+                return;
+            }
+
+            char[] newKeys = new char[keys.length - 1];
+            Object[] newChildren = new Object[keys.length - 1];
+            System.arraycopy(keys, 0, newKeys, 0, index);
+            System.arraycopy(keys, index + 1, newKeys, index, keys.length - index - 1);
+            System.arraycopy(children, 0, newChildren, 0, index);
+            System.arraycopy(children, index + 1, newChildren, index, keys.length - index - 1);
+            keys = newKeys;
+            children = newChildren;
+        }
+
+        boolean isEmpty() {
+            return keys.length == 0 && (values == null || values.isEmpty());
+        }
+    }
+
+    /**
+     * Adds a value under a key, unless the key already holds it
+     * @param key The key
+     * @param value The value to store
+     */
+    public void insert(String key, V value) {
+        Node node = root;
+        for (int i = 0; i < key.length(); i++) {
+            node = node.addChild(key.charAt(i));
+        }
+        if (node.values == null) {
+            node.values = new LinkedHashSet<>(2);
+        }
+        if (node.values.add(value)) {
+            size++;
+        }
+    }
+
+    /**
+     * Removes one value from a key, pruning nodes that become empty
+     * @param key The key
+     * @param value The value to remove, compared with equals
+     * @return true if the value was found and removed
+     */
+    @SuppressWarnings("unchecked")
+    public boolean remove(String key, V value) {
+        Object[] path = new Object[key.length() + 1];
+        Node node = root;
+        path[0] = node;
+        for (int i = 0; i < key.length(); i++) {
+            node = node.child(key.charAt(i));
+            if (node == null) {
+                return false;
+            }
+            path[i + 1] = node;
+        }
+        if (node.values == null || !node.values.remove(value)) {
+            return false;
+        }
+        size--;
+
+        // Unlink the now empty nodes from the bottom up
+        for (int i = key.length(); i > 0 && ((Node) path[i]).isEmpty(); i--) {
+            ((Node) path[i - 1]).removeChild(key.charAt(i - 1));
+        }
+        return true;
+    }
+
+    /**
+     * Visits the values of every key starting with the prefix, in key order
+     * @param prefix The prefix to match
+     * @param visitor Receives each value; returning false stops the visit
+     */
+    public void visitPrefix(String prefix, Predicate<V> visitor) {
+        Node node = root;
+        for (int i = 0; i < prefix.length() && node != null; i++) {
+            node = node.child(prefix.charAt(i));
+        }
+        if (node != null) {
+            visit(node, visitor);
+        }
+    }
+
+    /**
+     * Returns the values stored under exactly this key
+     * @param key The key
+     * @return The values, empty if the key is absent
+     */
+    public CustomArrayList<V> get(String key) {
+        Node node = root;
+        for (int i = 0; i < key.length() && node != null; i++) {
+            node = node.child(key.charAt(i));
+        }
+        CustomArrayList<V> result = new CustomArrayList<>();
+        if (node != null && node.values != null) {
+            for (V value : node.values) {
+                result.add(value);
+            }
+        }
+        return result;
+    }
+
+    @SuppressWarnings("unchecked")
+    private boolean visit(Node node, Predicate<V> visitor) {
+        if (node.values != null) {
+            for (V value : node.values) {
+                if (!visitor.test(value)) {
+                    return false;
+                }
+            }
+        }
+        for (int i = 0; i < node.keys.length; i++) {
+            if (!visit((Node) node.children[i], visitor)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the number of stored key/value pairs
+     * @return The size
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Checks if the trie is empty
+     * @return true if empty
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+}